@@ -0,0 +1,106 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.EshopMicroservicesApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Démarre l'application sur une base H2 pour les benchmarks.
+ * <p>
+ * {@link #start} utilise une base fichier (sous target/) : les données ne doivent pas occuper le
+ * tas mesuré. {@link #startWeb} garde la base en mémoire pour les benchmarks du chemin HTTP.
+ */
+final class BenchmarkContexts {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String database, String... extraProperties) {
+        return start(WebApplicationType.NONE, database, fileUrl(database), List.of(extraProperties));
+    }
+
+    static String fileUrl(String database) {
+        return "jdbc:h2:file:./target/jmh-h2/" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;LAZY_QUERY_EXECUTION=1";
+    }
+
+    // Contexte web complet (MockMvc, convertisseurs HAL) sur une base H2 en mémoire, Tomcat sur un port libre
+    static ConfigurableApplicationContext startWeb(String database, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(extraProperties));
+        properties.add("server.port=0");
+        return start(WebApplicationType.SERVLET, database,
+                "jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                properties);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String database, String url,
+                                                        List<String> extraProperties) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String property : List.of(
+                "spring.datasource.url=" + url,
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "eshop.search.index-dir=./target/jmh-index/" + database,
+                "logging.level.root=WARN")) {
+            put(properties, property);
+        }
+        // Une propriété passée par le benchmark remplace la valeur par défaut (un argument répété
+        // serait lu comme une liste "a,b")
+        extraProperties.forEach(property -> put(properties, property));
+        // Passées en arguments de ligne de commande pour primer sur application.properties
+        return new SpringApplicationBuilder(EshopMicroservicesApplication.class)
+                .web(type)
+                .bannerMode(Banner.Mode.OFF)
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+    }
+
+    private static void put(Map<String, String> properties, String property) {
+        int egal = property.indexOf('=');
+        properties.put(property.substring(0, egal), property.substring(egal + 1));
+    }
+
+    // Insère une catégorie et rowCount produits en JDBC direct, par lots
+    static void seedProduits(ConfigurableApplicationContext context, int rowCount) {
+        seedProduits(context, rowCount, i -> "produit-" + i, i -> "description du produit " + i);
+    }
+
+    // Idem avec le nom et la description de la ligne i fournis par l'appelant
+    static void seedProduits(ConfigurableApplicationContext context, int rowCount,
+                             IntFunction<String> nom, IntFunction<String> description) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Long categorieId = seedCategorie(context);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 1; i <= rowCount; i++) {
+            batch.add(new Object[]{(long) i, nom.apply(i), description.apply(i), 10.0 + i % 100, i % 50, categorieId});
+            if (batch.size() == INSERT_BATCH || i == rowCount) {
+                jdbc.batchUpdate("insert into produit (id, nom, description, prix, quantite_stock, version, categorie_id) "
+                        + "values (?, ?, ?, ?, ?, 0, ?)", batch);
+                batch.clear();
+            }
+        }
+        // Les ids alloués ensuite par Hibernate (par blocs de 50) commencent après les lignes insérées
+        jdbc.execute("alter sequence produit_seq restart with " + (rowCount + 100));
+    }
+
+    static Long seedCategorie(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into categorie (nom, description, version) values ('bench', 'catégorie de benchmark', 0)");
+        return jdbc.queryForObject("select max(id) from categorie", Long.class);
+    }
+}
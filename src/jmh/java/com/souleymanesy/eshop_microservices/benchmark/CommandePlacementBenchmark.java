@@ -0,0 +1,80 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.service.CommandeOutboxWorker;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Débit de POST /api/commandes (une ligne sur un produit tiré parmi PRODUITS) : chemin synchrone
+ * (réservation du stock dans la requête) contre accept-fast ({@code Prefer: respond-async},
+ * commande + outbox puis 202). Le pool de l'outbox tourne pendant la mesure et consomme sa part
+ * de la base et du CPU.
+ * <p>
+ * {@code backlog} en fin d'essai : commandes acceptées que le pool n'avait pas encore traitées.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class CommandePlacementBenchmark {
+
+    private static final int PRODUITS = 100;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.startWeb("placement",
+                "eshop.commande.outbox.max-backlog=1000000000");
+        BenchmarkContexts.seedProduits(context, PRODUITS);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        // Stock inépuisable : aucune commande n'est refusée pendant la mesure
+        jdbc.update("update produit set quantite_stock = 1000000000");
+        jdbc.update("insert into app_user (username, password, email) values ('bench', 'secret', 'bench@eshop.sn')");
+        userId = jdbc.queryForObject("select max(id) from app_user", Long.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println("backlog=" + context.getBean(CommandeOutboxWorker.class).getBacklog());
+        context.close();
+    }
+
+    @Benchmark
+    public int synchrone() throws Exception {
+        return mockMvc.perform(post("/api/commandes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corps()))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int asynchrone() throws Exception {
+        return mockMvc.perform(post("/api/commandes")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corps()))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private String corps() {
+        long produitId = ThreadLocalRandom.current().nextLong(1, PRODUITS + 1);
+        return "{\"user\":{\"id\":" + userId + "},\"lignes\":[{\"produitId\":" + produitId + ",\"quantite\":1}]}";
+    }
+}
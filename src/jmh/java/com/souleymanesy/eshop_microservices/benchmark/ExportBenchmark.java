@@ -0,0 +1,86 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.service.ProduitService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare l'export NDJSON en flux à la sérialisation d'une liste entièrement chargée.
+ * <p>
+ * Le compteur {@code peakHeapMb} donne le pic de tas atteint pendant l'itération : il reste
+ * stable pour l'export en flux quand {@code rowCount} augmente, alors que la version
+ * matérialisée croît avec la table (jusqu'à l'OutOfMemoryError avec -Xmx512m).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class ExportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rowCount;
+
+    private ConfigurableApplicationContext context;
+    private ProduitService produitService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("export-" + rowCount);
+        BenchmarkContexts.seedProduits(context, rowCount);
+        produitService = context.getBean(ProduitService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long streamingExport(HeapPeak heap) throws IOException {
+        long count = produitService.exportProduits(OutputStream.nullOutputStream());
+        heap.record();
+        return count;
+    }
+
+    @Benchmark
+    public void materializedExport(HeapPeak heap) throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), produitService.getAllProduits());
+        heap.record();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapPeak {
+
+        public long peakHeapMb;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            System.gc();
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+            peakHeapMb = 0;
+        }
+
+        void record() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            peakHeapMb = peak / (1024 * 1024);
+        }
+    }
+}
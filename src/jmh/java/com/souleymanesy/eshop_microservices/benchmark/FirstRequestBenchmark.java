@@ -0,0 +1,138 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temps jusqu'à la première réponse : d'un lancement de JVM au premier 200 sur GET /api/produits,
+ * serveur HTTP compris, selon l'empaquetage. Jar exécutable (jars imbriqués), jar simple avec lib/,
+ * contexte Spring AOT, puis archive CDS en plus.
+ * <p>
+ * L'application construite par {@code mvn -Paot-cds,cds-h2 package} (target/ et target/cds) est lancée
+ * dans un processus à part, profil prod, sur une base H2 fichier en mode MySQL (schéma créé par
+ * Flyway au premier lancement, pendant le préchauffage). Une mesure par lancement ; sortie du
+ * dernier lancement dans target/first-request-&lt;mode&gt;.log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FirstRequestBenchmark {
+
+    @Param({"fat-jar", "thin", "aot", "aot-cds"})
+    public String mode;
+
+    private Path target;
+    private Path cds;
+    private Path fatJar;
+    private Path cdsJar;
+    private HttpClient client;
+    private int port;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        target = Path.of("target").toAbsolutePath();
+        cds = target.resolve("cds");
+        fatJar = jar(target, "eshop-microservices-*.jar");
+        cdsJar = jar(cds, "eshop-microservices-*-cds.jar");
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    }
+
+    private static Path jar(Path directory, String glob) throws IOException {
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> jars = Files.newDirectoryStream(directory, glob)) {
+                for (Path jar : jars) {
+                    return jar;
+                }
+            }
+        }
+        throw new IllegalStateException("Pas de " + glob + " dans " + directory + " : lancer d'abord mvn -Paot-cds,cds-h2 package");
+    }
+
+    @Setup(Level.Invocation)
+    public void choisirPort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void arreter() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    @Benchmark
+    public int premiereRequete() throws Exception {
+        File log = target.resolve("first-request-" + mode + ".log").toFile();
+        process = new ProcessBuilder(commande())
+                .directory(cds.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/produits"))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        while (true) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application arrêtée au démarrage, voir " + log);
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (IOException e) {
+                // Port pas encore ouvert
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    // Même JVM que le benchmark : l'archive CDS n'est valable que pour le JDK qui l'a produite
+    private List<String> commande() {
+        List<String> commande = new ArrayList<>();
+        commande.add(ProcessHandle.current().info().command().orElse("java"));
+        if (mode.equals("aot-cds")) {
+            commande.add("-XX:SharedArchiveFile=application.jsa");
+        }
+        if (mode.startsWith("aot")) {
+            commande.add("-Dspring.aot.enabled=true");
+        }
+        commande.add("-jar");
+        commande.add((mode.equals("fat-jar") ? fatJar : cdsJar).toString());
+        commande.addAll(List.of(
+                "--spring.profiles.active=prod",
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:file:" + target.resolve("jmh-h2/first-request") + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+                "--eshop.search.index-dir=" + target.resolve("jmh-index/first-request"),
+                "--logging.level.root=WARN"));
+        return commande;
+    }
+}
@@ -0,0 +1,140 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.assembler.ProduitModelAssembler;
+import com.souleymanesy.eshop_microservices.dto.ProduitPage;
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Représentations d'une page de produits de {@code rows} lignes : HAL JSON (trois liens par ligne),
+ * JSON compact, Smile et CBOR ({@link ProduitPage}, liens des lignes en gabarits). Mesure la
+ * sérialisation, la sérialisation avec gzip (le travail de Tomcat quand la compression est active)
+ * et la désérialisation typée côté client.
+ * <p>
+ * Chaque fork affiche la taille du corps, brute et gzip. Les ObjectMapper sont ceux des
+ * convertisseurs de l'application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FormatsBenchmark {
+
+    public enum Format { HAL_JSON, JSON_COMPACT, SMILE, CBOR }
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"HAL_JSON", "JSON_COMPACT", "SMILE", "CBOR"})
+    private Format format;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper mapper;
+    private JavaType type;
+    private Object page;
+    private byte[] octets;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContexts.startWeb("formats");
+        // Liens construits comme pendant une requête réelle
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/produits");
+        request.setServerName("eshop.local");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        List<ProduitSummary> produits = new ArrayList<>(rows);
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 12, 0);
+        for (long i = 1; i <= rows; i++) {
+            produits.add(new ProduitSummary(i, "produit-" + i, "description du produit " + i, 10.0 + i % 100,
+                    (int) (i % 50), 0L, date, 1L + i % 20));
+        }
+        Link self = Link.of("http://eshop.local/api/produits?size=" + rows);
+        Link next = Link.of("http://eshop.local/api/produits?after=" + rows + "&size=" + rows, IanaLinkRelations.NEXT);
+        ProduitModelAssembler assembler = context.getBean(ProduitModelAssembler.class);
+
+        if (format == Format.HAL_JSON) {
+            mapper = halMapper();
+            type = mapper.getTypeFactory().constructType(new TypeReference<CollectionModel<EntityModel<ProduitSummary>>>() {
+            });
+            page = CollectionModel.of(assembler.toModels(produits), self, next);
+        } else {
+            mapper = switch (format) {
+                case SMILE -> context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+                case CBOR -> context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+                default -> context.getBean(ObjectMapper.class);
+            };
+            type = mapper.getTypeFactory().constructType(ProduitPage.class);
+            page = new ProduitPage(Map.of("self", self.getHref(), "next", next.getHref()), assembler.templates(),
+                    rows, produits);
+        }
+        octets = mapper.writeValueAsBytes(page);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(octets);
+        }
+        System.out.printf("%s, %d lignes : %d octets, %d octets gzip%n", format, rows, octets.length, gzip.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        context.close();
+    }
+
+    // Mapper du convertisseur application/hal+json (Jackson2HalModule), pas le mapper JSON de Spring Boot
+    private ObjectMapper halMapper() {
+        for (HttpMessageConverter<?> converter : context.getBean(RequestMappingHandlerAdapter.class).getMessageConverters()) {
+            if (converter instanceof AbstractJackson2HttpMessageConverter jackson
+                    && jackson.canWrite(CollectionModel.class, MediaTypes.HAL_JSON)) {
+                return jackson.getObjectMapper();
+            }
+        }
+        throw new IllegalStateException("Pas de convertisseur HAL");
+    }
+
+    @Benchmark
+    public void serialiser() throws IOException {
+        mapper.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public void serialiserGzip() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(OutputStream.nullOutputStream(), 8192)) {
+            mapper.writeValue(out, page);
+        }
+    }
+
+    @Benchmark
+    public Object deserialiser() throws IOException {
+        return mapper.readValue(octets, type);
+    }
+}
@@ -0,0 +1,91 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.config.IdempotencyFilter;
+import com.souleymanesy.eshop_microservices.service.IdempotenceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du filtre Idempotency-Key pour un POST /api/commandes, hors exécution de la commande :
+ * requête sans clé (passage direct) et nouvelle tentative servie par le cache. La table est
+ * remplacée par une réservation en mémoire : seul le chemin sans base est mesuré. Le surcoût du
+ * filtre est l'écart avec {@code requeteSeule}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdempotencyBenchmark {
+
+    private static final byte[] CORPS = "{\"user\":{\"id\":1},\"dateCommande\":\"2033-01-02T10:00:00\",\"montantTotal\":42.0}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private IdempotencyFilter filter;
+    private FilterChain chain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        IdempotenceService enMemoire = new IdempotenceService(null, null, 24, 300_000) {
+            @Override
+            public Reservation reserver(String cle, String empreinte) {
+                return new Reservation(LocalDateTime.now(), null);
+            }
+
+            @Override
+            public boolean enregistrer(String cle, LocalDateTime dateCreation, Reponse reponse) {
+                return true;
+            }
+        };
+        filter = new IdempotencyFilter(enMemoire, new SimpleMeterRegistry(), 10_000, 10_000);
+        chain = (request, response) -> {
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setContentType("application/hal+json");
+            http.getOutputStream().write(CORPS);
+        };
+        // Première exécution : la réponse entre dans le cache
+        filter.doFilter(requete("cle-rejouee"), new MockHttpServletResponse(), chain);
+    }
+
+    // Référence : construction de la requête et de la réponse simulées, sans le filtre
+    @Benchmark
+    public MockHttpServletResponse requeteSeule() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain.doFilter(requete("cle-rejouee"), response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse sansCle() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(requete(null), response, chain);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse rejeuDepuisLeCache() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(requete("cle-rejouee"), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest requete(String cle) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/commandes");
+        request.setContentType("application/json");
+        request.setContent(CORPS);
+        if (cle != null) {
+            request.addHeader("Idempotency-Key", cle);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,73 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.assembler.ProduitModelAssembler;
+import com.souleymanesy.eshop_microservices.controller.CategorieController;
+import com.souleymanesy.eshop_microservices.controller.ProduitController;
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Construction des liens HATEOAS d'une liste de produits : {@code linkTo(methodOn(...))} par
+ * ligne (ancien chemin des contrôleurs) contre les gabarits précalculés de l'assembleur.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkAssemblyBenchmark {
+
+    @Param({"10000"})
+    public int rowCount;
+
+    private List<ProduitSummary> produits;
+    private ProduitModelAssembler assembler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/produits");
+        request.setServerName("eshop.local");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        produits = new ArrayList<>(rowCount);
+        for (long i = 1; i <= rowCount; i++) {
+            produits.add(new ProduitSummary(i, "produit-" + i, null, 9.99, 10, 0L, null, 1L));
+        }
+        assembler = new ProduitModelAssembler();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<EntityModel<ProduitSummary>> methodOnPerRow() {
+        List<EntityModel<ProduitSummary>> models = new ArrayList<>(produits.size());
+        for (ProduitSummary produit : produits) {
+            models.add(EntityModel.of(produit,
+                    linkTo(methodOn(ProduitController.class).getProduitById(produit.id(), null)).withSelfRel(),
+                    linkTo(methodOn(ProduitController.class).getAllProduits(null, null, null, null, null, null, null, null)).withRel("produits"),
+                    linkTo(methodOn(CategorieController.class).getCategorieById(produit.categorieId(), null)).withRel("categorie")));
+        }
+        return models;
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<ProduitSummary>> cachedTemplates() {
+        return assembler.toCollectionModel(produits);
+    }
+}
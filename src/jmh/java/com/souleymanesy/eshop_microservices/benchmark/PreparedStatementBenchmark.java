@@ -0,0 +1,145 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence d'une requête préparée selon les options Connector/J, sur un vrai serveur MySQL (H2 n'a
+ * ni requêtes préparées côté serveur ni aller-retour réseau) :
+ * <ul>
+ *     <li>{@code client} : options du driver par défaut, requêtes préparées émulées côté client ;</li>
+ *     <li>{@code base} : URL de application.properties, où {@code useCursorFetch=true} impose les
+ *     requêtes préparées côté serveur, sans cache : PREPARE et CLOSE à chaque requête ;</li>
+ *     <li>{@code prod} : URL de application-prod.properties ({@code cachePrepStmts},
+ *     {@code useServerPrepStmts}, caches de session et de configuration).</li>
+ * </ul>
+ * Chaque appel fait comme un dépôt Spring Data : connexion empruntée au pool, prepareStatement,
+ * exécution, fermeture. Requêtes courtes, où le driver pèse le plus : lecture d'un produit par clé
+ * primaire ({@code produit}, GET /api/produits/{id}) et réservation de stock ({@code reservation},
+ * UPDATE en autocommit). La base (url) est migrée par Flyway et remplie au premier lancement :
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PreparedStatementBenchmark -p url=jdbc:mysql://hote:3306/bd_eshop_bench"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PreparedStatementBenchmark {
+
+    private static final int PRODUITS = 10_000;
+    private static final String BASE = "useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+    // Mêmes options que application.properties et application-prod.properties
+    private static final Map<String, String> OPTIONS = Map.of(
+            "client", BASE,
+            "base", BASE + "&useCursorFetch=true&rewriteBatchedStatements=true",
+            "prod", BASE + "&useCursorFetch=true&rewriteBatchedStatements=true&cachePrepStmts=true"
+                    + "&useServerPrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048"
+                    + "&useLocalSessionState=true&cacheServerConfiguration=true&cacheResultSetMetadata=true"
+                    + "&elideSetAutoCommits=true&maintainTimeStats=false");
+    // Requêtes de ProduitRepository.findById (colonnes de Produit) et ProduitRepository.reserverStock
+    private static final String PRODUIT_SQL = "select p.id, p.nom, p.description, p.prix, p.quantite_stock, p.version, "
+            + "p.date_modification, p.categorie_id from produit p where p.id = ?";
+    private static final String RESERVATION_SQL = "update produit set quantite_stock = quantite_stock - ?, "
+            + "version = version + 1, date_modification = ? where id = ? and quantite_stock >= ?";
+
+    @Param({"jdbc:mysql://localhost:8889/bd_eshop_bench"})
+    public String url;
+
+    @Param({"root"})
+    public String user;
+
+    @Param({"root"})
+    public String password;
+
+    @Param({"client", "base", "prod"})
+    public String options;
+
+    @Param({"produit", "reservation"})
+    public String requete;
+
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = dataSource(url + (url.contains("?") ? "&" : "?") + OPTIONS.get(options));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        Long existants = jdbc.queryForObject("select count(*) from produit", Long.class);
+        if (existants == null || existants < PRODUITS) {
+            remplir(jdbc);
+        }
+    }
+
+    private HikariDataSource dataSource(String jdbcUrl) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+        // Un seul thread de mesure : une connexion, réutilisée comme dans le pool de l'application
+        config.setMaximumPoolSize(1);
+        return new HikariDataSource(config);
+    }
+
+    private static void remplir(JdbcTemplate jdbc) {
+        jdbc.update("delete from produit");
+        jdbc.update("insert into categorie (nom, description, version) values ('bench', 'catégorie de benchmark', 0)");
+        Long categorieId = jdbc.queryForObject("select max(id) from categorie", Long.class);
+        List<Object[]> lignes = new ArrayList<>(PRODUITS);
+        for (int i = 1; i <= PRODUITS; i++) {
+            lignes.add(new Object[]{(long) i, "produit-" + i, "description du produit " + i, 10.0 + i % 100, 1_000_000, categorieId});
+        }
+        jdbc.batchUpdate("insert into produit (id, nom, description, prix, quantite_stock, version, categorie_id) "
+                + "values (?, ?, ?, ?, ?, 0, ?)", lignes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void executer(Blackhole blackhole) throws SQLException {
+        long id = ThreadLocalRandom.current().nextLong(1, PRODUITS + 1);
+        try (Connection connection = dataSource.getConnection()) {
+            if (requete.equals("produit")) {
+                try (PreparedStatement statement = connection.prepareStatement(PRODUIT_SQL)) {
+                    statement.setLong(1, id);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            blackhole.consume(resultSet.getLong(1));
+                            blackhole.consume(resultSet.getString(2));
+                            blackhole.consume(resultSet.getString(3));
+                            blackhole.consume(resultSet.getDouble(4));
+                        }
+                    }
+                }
+            } else {
+                try (PreparedStatement statement = connection.prepareStatement(RESERVATION_SQL)) {
+                    statement.setInt(1, 1);
+                    statement.setObject(2, LocalDateTime.now());
+                    statement.setLong(3, id);
+                    statement.setInt(4, 1);
+                    blackhole.consume(statement.executeUpdate());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.dto.ProduitBatchResult;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.service.CategorieService;
+import com.souleymanesy.eshop_microservices.service.ProduitService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import de produits : un enregistrement par produit (chemin de POST /api/produits) contre
+ * {@link ProduitService#saveProduitsBatch} (lots transactionnels + batching JDBC).
+ * <p>
+ * H2 n'a pas le coût réseau d'un aller-retour MySQL : l'écart mesuré ici est un minimum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProduitImportBenchmark {
+
+    @Param({"10000"})
+    public int rowCount;
+
+    private ConfigurableApplicationContext context;
+    private ProduitService produitService;
+    private CategorieService categorieService;
+    private Long categorieId;
+    private List<Produit> produits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("import");
+        produitService = context.getBean(ProduitService.class);
+        categorieService = context.getBean(CategorieService.class);
+        categorieId = BenchmarkContexts.seedCategorie(context);
+    }
+
+    @Setup(Level.Iteration)
+    public void nouveauxProduits() {
+        produits = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            produits.add(new Produit(null, "import-" + i, "produit importé", 19.99, 10, null, null,
+                    new Categorie(categorieId, null, null, null, null, null, null)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int unParUn() {
+        int count = 0;
+        for (Produit produit : produits) {
+            produit.setCategorie(categorieService.getCategorieById(categorieId).orElseThrow());
+            produitService.saveProduit(produit);
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<ProduitBatchResult> parLots() {
+        return produitService.saveProduitsBatch(produits);
+    }
+}
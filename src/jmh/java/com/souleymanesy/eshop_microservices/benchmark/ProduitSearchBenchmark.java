@@ -0,0 +1,102 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import com.souleymanesy.eshop_microservices.service.ProduitIndexInitializer;
+import com.souleymanesy.eshop_microservices.service.ProduitService;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence de {@link ProduitService#rechercherProduits} (index Lucene puis projection SQL des ids
+ * de la page) sur un catalogue de rowCount produits.
+ * <p>
+ * Noms et descriptions tirés d'un vocabulaire de 500 mots : un mot isolé correspond à environ
+ * 2 % du catalogue, deux mots à quelques centaines de produits par million. Le mode SampleTime
+ * donne les percentiles (p0.99) ; la reconstruction initiale de l'index n'est pas mesurée.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 6, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProduitSearchBenchmark {
+
+    private static final int VOCABULAIRE = 500;
+    private static final int MOTS_NOM = 3;
+    private static final int MOTS_DESCRIPTION = 8;
+
+    @Param({"100000", "1000000"})
+    public int rowCount;
+
+    private ConfigurableApplicationContext context;
+    private ProduitService produitService;
+    private String[] requetesUnMot;
+    private String[] requetesDeuxMots;
+    private int suivante;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = BenchmarkContexts.start("search-" + rowCount, "eshop.search.reindex-if-empty=false");
+        BenchmarkContexts.seedProduits(context, rowCount,
+                i -> phrase(i, MOTS_NOM), i -> phrase(-i, MOTS_DESCRIPTION));
+        new ProduitIndexInitializer(context.getBean(EntityManagerFactory.class), true, false, 2, 1000)
+                .reconstruire();
+        produitService = context.getBean(ProduitService.class);
+
+        Random random = new Random(42);
+        requetesUnMot = new String[256];
+        requetesDeuxMots = new String[256];
+        for (int i = 0; i < requetesUnMot.length; i++) {
+            requetesUnMot[i] = mot(random.nextInt(VOCABULAIRE));
+            requetesDeuxMots[i] = mot(random.nextInt(VOCABULAIRE)) + " " + mot(random.nextInt(VOCABULAIRE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ProduitSummary> unMot() {
+        return produitService.rechercherProduits(requetesUnMot[suivante++ & 255], 0, 20);
+    }
+
+    @Benchmark
+    public Page<ProduitSummary> deuxMots() {
+        return produitService.rechercherProduits(requetesDeuxMots[suivante++ & 255], 0, 20);
+    }
+
+    // Page 5 d'un mot courant : Lucene doit garder les 120 meilleurs résultats au lieu de 20
+    @Benchmark
+    public Page<ProduitSummary> unMotPageCinq() {
+        return produitService.rechercherProduits(requetesUnMot[suivante++ & 255], 5, 20);
+    }
+
+    private static String phrase(int graine, int mots) {
+        SplittableRandom random = new SplittableRandom(graine);
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < mots; i++) {
+            if (i > 0) {
+                phrase.append(' ');
+            }
+            phrase.append(mot(random.nextInt(VOCABULAIRE)));
+        }
+        return phrase.toString();
+    }
+
+    // Mots artificiels prononçables et distincts après analyse (pas de pluriel ni d'accent)
+    private static String mot(int n) {
+        String consonnes = "bdfglmnprt";
+        String voyelles = "aiou";
+        return "" + consonnes.charAt(n % 10) + voyelles.charAt(n / 10 % 4)
+                + consonnes.charAt(n / 40 % 10) + voyelles.charAt(n / 400 % 4) + "k";
+    }
+}
@@ -0,0 +1,65 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'une liste de produits : entités gérées dans une transaction en écriture (ancien
+ * chemin des GET, instantanés et vérification des modifications au flush) contre projection
+ * {@link ProduitSummary} dans une transaction en lecture seule.
+ * <p>
+ * Lancer avec {@code -prof gc} : {@code gc.alloc.rate.norm} donne la mémoire allouée par lecture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Param({"200", "2000"})
+    public int rowCount;
+
+    private ConfigurableApplicationContext context;
+    private ProduitRepository produitRepository;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("projection-" + rowCount);
+        BenchmarkContexts.seedProduits(context, rowCount);
+        produitRepository = context.getBean(ProduitRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Produit> managedEntities() {
+        return readWrite.execute(status -> produitRepository.findAllWithCategorie());
+    }
+
+    @Benchmark
+    public List<ProduitSummary> readOnlyProjection() {
+        return readOnly.execute(status -> produitRepository.findSummaries(
+                Specification.where(null), Sort.by("id"), rowCount));
+    }
+}
@@ -0,0 +1,89 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.souleymanesy.eshop_microservices.config.AdaptiveConcurrencyLimit;
+import com.souleymanesy.eshop_microservices.config.RateLimitFilter;
+import com.souleymanesy.eshop_microservices.config.RateLimitProperties;
+import com.souleymanesy.eshop_microservices.config.TokenBucketLimiter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Surcoût du délestage par requête, sous contention (4 threads) : le seau à jetons seul, sur un
+ * client unique (tous les threads sur le même CAS) ou réparti sur 1024 clients, puis le filtre
+ * complet (correspondance de route, seau, limite de concurrence). Débit quasi illimité : chaque
+ * appel accepte la requête et écrit, le cas le plus coûteux.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 1024;
+    // Reste de la chaîne de filtres : rien, seul le coût du délestage est mesuré
+    private static final FilterChain SUITE = (request, response) -> {
+    };
+
+    private TokenBucketLimiter limiter;
+    private RateLimitFilter filter;
+    private String[] cles;
+
+    @State(Scope.Thread)
+    public static class Requete {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/commandes");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            request.setRemoteAddr("10.0." + ThreadLocalRandom.current().nextInt(CLIENTS / 256) + "."
+                    + ThreadLocalRandom.current().nextInt(256));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        limiter = new TokenBucketLimiter(1e9, 1_000_000);
+        cles = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            cles[i] = "client-" + i;
+        }
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(
+                new StaticListableBeanFactory().getBeanProvider(HikariDataSource.class), registry, 1000, 1, 1000, 20);
+        RateLimitProperties properties = new RateLimitProperties(true, Map.of(
+                "produits", new RateLimitProperties.Route("/api/produits/**", List.of("POST", "PUT", "DELETE"), 1e9, 1_000_000),
+                "commandes", new RateLimitProperties.Route("/api/commandes/**", List.of("POST", "PUT", "DELETE"), 1e9, 1_000_000)),
+                "X-API-Key", Set.of());
+        filter = new RateLimitFilter(properties, concurrencyLimit, registry);
+    }
+
+    @Benchmark
+    public long clientUnique() {
+        return limiter.tryAcquire("client-0", System.nanoTime());
+    }
+
+    @Benchmark
+    public long clientsRepartis() {
+        return limiter.tryAcquire(cles[ThreadLocalRandom.current().nextInt(CLIENTS)], System.nanoTime());
+    }
+
+    @Benchmark
+    public int filtre(Requete requete) throws Exception {
+        filter.doFilter(requete.request, requete.response, SUITE);
+        return requete.response.getStatus();
+    }
+}
@@ -0,0 +1,133 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.assembler.ProduitModelAssembler;
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.service.CommandeService;
+import com.souleymanesy.eshop_microservices.service.ProduitService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Coût de la représentation JSON du graphe d'entités, étape par étape :
+ * sérialisation Jackson des entités (références gérées/retour, getters Lombok), construction des
+ * {@link EntityModel}, puis chemin complet du contrôleur via MockMvc sur H2 (requête, assemblage,
+ * rendu HAL).
+ * <p>
+ * Résultats en JSON dans target/jmh-result.json (voir le profil jmh du pom.xml).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    // Taille d'une page de /api/produits (eshop.pagination.max-size) et nombre de commandes listées
+    private static final int PAGE_SIZE = 200;
+    private static final int COMMANDES = 200;
+    private static final int LIGNES_PAR_COMMANDE = 3;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private ProduitModelAssembler produitAssembler;
+    private MockMvc mockMvc;
+    private List<Produit> produits;
+    private List<ProduitSummary> summaries;
+    private List<Commande> commandes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.startWeb("serialization");
+        BenchmarkContexts.seedProduits(context, PAGE_SIZE);
+        seedCommandes(context.getBean(JdbcTemplate.class));
+
+        objectMapper = context.getBean(ObjectMapper.class);
+        produitAssembler = context.getBean(ProduitModelAssembler.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        produits = context.getBean(ProduitService.class).getAllProduits();
+        summaries = produits.stream().map(ProduitSummary::of).toList();
+        commandes = context.getBean(CommandeService.class).getAllCommandes();
+
+        // Liens construits comme pendant une requête réelle (MockMvc restaure ces attributs après chaque appel)
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/produits");
+        request.setServerName("eshop.local");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        context.close();
+    }
+
+    // Un utilisateur, COMMANDES commandes de LIGNES_PAR_COMMANDE lignes chacune sur les produits insérés
+    private static void seedCommandes(JdbcTemplate jdbc) {
+        jdbc.update("insert into app_user (username, password, email) values ('bench', 'secret', 'bench@eshop.sn')");
+        Long userId = jdbc.queryForObject("select max(id) from app_user", Long.class);
+        List<Object[]> commandes = new ArrayList<>();
+        List<Object[]> lignes = new ArrayList<>();
+        for (long c = 1; c <= COMMANDES; c++) {
+            commandes.add(new Object[]{c, 30.0 * LIGNES_PAR_COMMANDE, userId});
+            for (int l = 0; l < LIGNES_PAR_COMMANDE; l++) {
+                lignes.add(new Object[]{c, (c + l) % PAGE_SIZE + 1, 30.0});
+            }
+        }
+        jdbc.batchUpdate("insert into commande (id, date_commande, montant_total, statut, user_id) "
+                + "values (?, current_timestamp, ?, 'NOUVELLE', ?)", commandes);
+        jdbc.batchUpdate("insert into ligne_commande (commande_id, produit_id, quantite, prix_unitaire) "
+                + "values (?, ?, 1, ?)", lignes);
+    }
+
+    @Benchmark
+    public void produitsToJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), produits);
+    }
+
+    @Benchmark
+    public void produitSummariesToJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), summaries);
+    }
+
+    @Benchmark
+    public void commandesToJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), commandes);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<ProduitSummary>> produitsToEntityModels() {
+        return produitAssembler.toCollectionModel(summaries);
+    }
+
+    @Benchmark
+    public String produitsListEndpoint() throws Exception {
+        return mockMvc.perform(get("/api/produits").param("size", String.valueOf(PAGE_SIZE)))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Benchmark
+    public String commandesListEndpoint() throws Exception {
+        return mockMvc.perform(get("/api/commandes"))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
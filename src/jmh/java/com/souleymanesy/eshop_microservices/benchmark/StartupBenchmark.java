@@ -0,0 +1,64 @@
+package com.souleymanesy.eshop_microservices.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Démarrage à froid de l'application (contexte sans serveur web) sur un schéma déjà en place, selon
+ * la gestion du schéma : ddl-auto=update (ancien réglage par défaut), Flyway puis validation
+ * Hibernate (profil prod), Flyway sans validation.
+ * <p>
+ * Une JVM neuve par mesure (SingleShotTime, 5 forks). Base H2 fichier en mode MySQL et dialecte
+ * MySQL : le schéma est créé une fois par le script V1 de Flyway, comme une base de production.
+ * Sur H2, update ne reconnaît pas les index existants et retente leur création (5 DDL en échec,
+ * journal coupé) : un léger surcoût absent sur MySQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    private static final String DATABASE = "startup";
+
+    @Param({"update", "flyway-validate", "flyway-none"})
+    public String schema;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(BenchmarkContexts.fileUrl(DATABASE), "sa", "");
+             Statement statement = connection.createStatement()) {
+            ResultSet tables = statement.executeQuery(
+                    "select count(*) from information_schema.tables where table_name = 'produit'");
+            tables.next();
+            if (tables.getInt(1) == 0) {
+                statement.execute("runscript from 'classpath:db/migration/V1__schema_initial.sql'");
+            }
+        }
+    }
+
+    @Benchmark
+    public void start() {
+        String ddlAuto = schema.equals("update") ? "update" : schema.substring("flyway-".length());
+        try (ConfigurableApplicationContext context = BenchmarkContexts.start(DATABASE,
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+                "spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "spring.flyway.enabled=" + !schema.equals("update"),
+                // Base créée par le script V1 hors Flyway : marquée en version 1, comme en prod
+                "spring.flyway.baseline-on-migrate=true",
+                "spring.flyway.baseline-version=1",
+                "eshop.search.reindex-if-empty=false",
+                "logging.level.org.hibernate.tool.schema=OFF")) {
+            context.getId();
+        }
+    }
+}
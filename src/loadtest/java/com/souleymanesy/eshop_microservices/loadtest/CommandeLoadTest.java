@@ -0,0 +1,174 @@
+package com.souleymanesy.eshop_microservices.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Charge en boucle fermée sur /api/commandes d'une instance déjà démarrée : 80 % de
+ * GET /api/commandes/{id}, 20 % de POST /api/commandes.
+ * <p>
+ * Comparaison threads plateforme / threads virtuels : démarrer l'application sans profil puis
+ * avec {@code --spring.profiles.active=virtual-threads} (Java 21), et lancer à chaque fois
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.label=platform
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.label=virtual
+ * </pre>
+ * Le débit et les latences p50/p99 sont affichés et écrits dans target/loadtest-&lt;label&gt;.json.
+ * Paramètres : loadtest.url, loadtest.clients, loadtest.duration (secondes), loadtest.warmup.
+ */
+public final class CommandeLoadTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final List<Long> commandeIds = new ArrayList<>();
+    private long userId;
+
+    private CommandeLoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("loadtest.url", "http://localhost:8080");
+        String label = System.getProperty("loadtest.label", "run");
+        int clients = Integer.getInteger("loadtest.clients", 200);
+        int duration = Integer.getInteger("loadtest.duration", 60);
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+
+        CommandeLoadTest test = new CommandeLoadTest(url);
+        test.seed(100);
+        test.run(clients, warmup, false);
+        Result result = test.run(clients, duration, true);
+
+        String json = String.format(Locale.ROOT,
+                "{\"label\":\"%s\",\"clients\":%d,\"durationSeconds\":%d,\"requests\":%d,\"errors\":%d,"
+                        + "\"throughputPerSecond\":%.1f,\"p50Ms\":%.2f,\"p99Ms\":%.2f}%n",
+                label, clients, duration, result.requests(), result.errors(),
+                result.requests() / (double) duration, result.percentile(50), result.percentile(99));
+        System.out.print(json);
+        Path output = Path.of("target", "loadtest-" + label + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+    }
+
+    private void seed(int commandes) throws IOException, InterruptedException {
+        String suffix = Long.toString(System.nanoTime());
+        userId = extractId(post("/api/users", "{\"username\":\"load" + suffix + "\",\"password\":\"secret\","
+                + "\"email\":\"load" + suffix + "@test.sn\"}"));
+        for (int i = 0; i < commandes; i++) {
+            commandeIds.add(extractId(post("/api/commandes", commandeJson())));
+        }
+    }
+
+    private Result run(int clients, int seconds, boolean record) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            executor.execute(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    try {
+                        int status = ThreadLocalRandom.current().nextInt(100) < 80
+                                ? get("/api/commandes/" + commandeIds.get(ThreadLocalRandom.current().nextInt(commandeIds.size())))
+                                : post("/api/commandes", commandeJson()).statusCode();
+                        if (status >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[client] = samples;
+                counts[client] = count;
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        if (!record) {
+            return null;
+        }
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int position = 0;
+        for (int c = 0; c < clients; c++) {
+            if (latencies[c] != null) {
+                System.arraycopy(latencies[c], 0, all, position, counts[c]);
+                position += counts[c];
+            }
+        }
+        Arrays.sort(all, 0, position);
+        return new Result(Arrays.copyOf(all, position), errors.get());
+    }
+
+    private String commandeJson() {
+        return "{\"montantTotal\":" + ThreadLocalRandom.current().nextInt(10, 500)
+                + ",\"statut\":\"NOUVELLE\",\"user\":{\"id\":" + userId + "}}";
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long extractId(HttpResponse<String> response) {
+        Matcher matcher = ID.matcher(response.body());
+        if (response.statusCode() >= 400 || !matcher.find()) {
+            throw new IllegalStateException("Réponse inattendue " + response.statusCode() + " : " + response.body());
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private record Result(long[] sortedLatencies, long errors) {
+
+        long requests() {
+            return sortedLatencies.length;
+        }
+
+        double percentile(int percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
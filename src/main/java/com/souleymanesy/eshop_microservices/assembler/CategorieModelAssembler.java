@@ -0,0 +1,56 @@
+package com.souleymanesy.eshop_microservices.assembler;
+
+import com.souleymanesy.eshop_microservices.controller.CategorieController;
+import com.souleymanesy.eshop_microservices.controller.ProduitController;
+import com.souleymanesy.eshop_microservices.dto.CategorieSummary;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class CategorieModelAssembler implements RepresentationModelAssembler<CategorieSummary, EntityModel<CategorieSummary>> {
+
+    private static final LinkRelation CATEGORIES_REL = LinkRelation.of("categories");
+    private static final LinkRelation PRODUITS_REL = LinkRelation.of("produits");
+
+    private final LinkTemplate self = LinkTemplate.of(CategorieController.class, "/{id}");
+    private final LinkTemplate collection = LinkTemplate.of(CategorieController.class, "");
+    private final LinkTemplate produits = LinkTemplate.of(ProduitController.class, "?categorieId={id}");
+
+    @Override
+    public EntityModel<CategorieSummary> toModel(CategorieSummary categorie) {
+        return toModel(categorie, LinkTemplate.baseUri());
+    }
+
+    @Override
+    public CollectionModel<EntityModel<CategorieSummary>> toCollectionModel(Iterable<? extends CategorieSummary> entities) {
+        String baseUri = LinkTemplate.baseUri();
+        return CollectionModel.of(toModels(entities, baseUri), collection.toLink(baseUri, IanaLinkRelations.SELF));
+    }
+
+    // Modèles sans lien de collection, pour les enveloppes construites par le contrôleur (PagedModel...)
+    public List<EntityModel<CategorieSummary>> toModels(Iterable<? extends CategorieSummary> entities) {
+        return toModels(entities, LinkTemplate.baseUri());
+    }
+
+    private List<EntityModel<CategorieSummary>> toModels(Iterable<? extends CategorieSummary> entities, String baseUri) {
+        List<EntityModel<CategorieSummary>> models = new ArrayList<>();
+        for (CategorieSummary categorie : entities) {
+            models.add(toModel(categorie, baseUri));
+        }
+        return models;
+    }
+
+    private EntityModel<CategorieSummary> toModel(CategorieSummary categorie, String baseUri) {
+        return EntityModel.of(categorie,
+                self.toLink(baseUri, categorie.id(), IanaLinkRelations.SELF),
+                collection.toLink(baseUri, CATEGORIES_REL),
+                produits.toLink(baseUri, categorie.id(), PRODUITS_REL));
+    }
+}
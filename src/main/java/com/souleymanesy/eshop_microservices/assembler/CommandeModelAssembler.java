@@ -0,0 +1,56 @@
+package com.souleymanesy.eshop_microservices.assembler;
+
+import com.souleymanesy.eshop_microservices.controller.UserController;
+import com.souleymanesy.eshop_microservices.controller.CommandeController;
+import com.souleymanesy.eshop_microservices.dto.CommandeSummary;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class CommandeModelAssembler implements RepresentationModelAssembler<CommandeSummary, EntityModel<CommandeSummary>> {
+
+    private static final LinkRelation COMMANDES_REL = LinkRelation.of("commandes");
+    private static final LinkRelation USER_REL = LinkRelation.of("user");
+
+    private final LinkTemplate self = LinkTemplate.of(CommandeController.class, "/{id}");
+    private final LinkTemplate collection = LinkTemplate.of(CommandeController.class, "");
+    private final LinkTemplate user = LinkTemplate.of(UserController.class, "/{id}");
+
+    @Override
+    public EntityModel<CommandeSummary> toModel(CommandeSummary commande) {
+        return toModel(commande, LinkTemplate.baseUri());
+    }
+
+    @Override
+    public CollectionModel<EntityModel<CommandeSummary>> toCollectionModel(Iterable<? extends CommandeSummary> entities) {
+        String baseUri = LinkTemplate.baseUri();
+        return CollectionModel.of(toModels(entities, baseUri), collection.toLink(baseUri, IanaLinkRelations.SELF));
+    }
+
+    // Modèles sans lien de collection, pour les enveloppes construites par le contrôleur (PagedModel...)
+    public List<EntityModel<CommandeSummary>> toModels(Iterable<? extends CommandeSummary> entities) {
+        return toModels(entities, LinkTemplate.baseUri());
+    }
+
+    private List<EntityModel<CommandeSummary>> toModels(Iterable<? extends CommandeSummary> entities, String baseUri) {
+        List<EntityModel<CommandeSummary>> models = new ArrayList<>();
+        for (CommandeSummary commande : entities) {
+            models.add(toModel(commande, baseUri));
+        }
+        return models;
+    }
+
+    private EntityModel<CommandeSummary> toModel(CommandeSummary commande, String baseUri) {
+        return EntityModel.of(commande,
+                self.toLink(baseUri, commande.id(), IanaLinkRelations.SELF),
+                collection.toLink(baseUri, COMMANDES_REL),
+                user.toLink(baseUri, commande.userId(), USER_REL));
+    }
+}
@@ -0,0 +1,64 @@
+package com.souleymanesy.eshop_microservices.assembler;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Gabarit d'URI résolu une seule fois à partir du {@code @RequestMapping} d'un contrôleur.
+ * <p>
+ * Remplace {@code linkTo(methodOn(...))}, qui crée un proxy et résout le mapping à chaque
+ * appel : ici seule la base de la requête courante (schéma, hôte, contexte) est lue, une fois
+ * par réponse, puis l'id est concaténé.
+ */
+final class LinkTemplate {
+
+    private final String prefix;
+    private final String suffix;
+
+    private LinkTemplate(String prefix, String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+    }
+
+    // path relatif au mapping du contrôleur, "" ou "/{id}" par exemple
+    static LinkTemplate of(Class<?> controller, String path) {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(controller, RequestMapping.class);
+        String template = (mapping != null && mapping.path().length > 0 ? mapping.path()[0] : "") + path;
+        int variable = template.indexOf('{');
+        if (variable < 0) {
+            return new LinkTemplate(template, null);
+        }
+        return new LinkTemplate(template.substring(0, variable), template.substring(template.indexOf('}', variable) + 1));
+    }
+
+    // Base de la requête courante, vide hors requête HTTP (liens alors relatifs)
+    static String baseUri() {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return "";
+        }
+        return ServletUriComponentsBuilder.fromCurrentServletMapping().toUriString();
+    }
+
+    Link toLink(String baseUri, LinkRelation relation) {
+        return Link.of(baseUri + prefix, relation);
+    }
+
+    // Gabarit URI (RFC 6570) dont la variable est nommée par l'appelant, "{categorieId}" par exemple
+    String toTemplate(String baseUri, String variable) {
+        if (suffix == null) {
+            return baseUri + prefix;
+        }
+        return baseUri + prefix + "{" + variable + "}" + suffix;
+    }
+
+    Link toLink(String baseUri, Object id, LinkRelation relation) {
+        if (suffix == null) {
+            return toLink(baseUri, relation);
+        }
+        return Link.of(baseUri + prefix + id + suffix, relation);
+    }
+}
@@ -0,0 +1,68 @@
+package com.souleymanesy.eshop_microservices.assembler;
+
+import com.souleymanesy.eshop_microservices.controller.CategorieController;
+import com.souleymanesy.eshop_microservices.controller.ProduitController;
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class ProduitModelAssembler implements RepresentationModelAssembler<ProduitSummary, EntityModel<ProduitSummary>> {
+
+    private static final LinkRelation PRODUITS_REL = LinkRelation.of("produits");
+    private static final LinkRelation CATEGORIE_REL = LinkRelation.of("categorie");
+
+    private final LinkTemplate self = LinkTemplate.of(ProduitController.class, "/{id}");
+    private final LinkTemplate collection = LinkTemplate.of(ProduitController.class, "");
+    private final LinkTemplate categorie = LinkTemplate.of(CategorieController.class, "/{id}");
+
+    @Override
+    public EntityModel<ProduitSummary> toModel(ProduitSummary produit) {
+        return toModel(produit, LinkTemplate.baseUri());
+    }
+
+    @Override
+    public CollectionModel<EntityModel<ProduitSummary>> toCollectionModel(Iterable<? extends ProduitSummary> entities) {
+        String baseUri = LinkTemplate.baseUri();
+        return CollectionModel.of(toModels(entities, baseUri), collection.toLink(baseUri, IanaLinkRelations.SELF));
+    }
+
+    // Modèles sans lien de collection, pour les enveloppes construites par le contrôleur (PagedModel...)
+    public List<EntityModel<ProduitSummary>> toModels(Iterable<? extends ProduitSummary> entities) {
+        return toModels(entities, LinkTemplate.baseUri());
+    }
+
+    // Liens d'une ligne sous forme de gabarits, variables nommées d'après les champs de ProduitSummary
+    public Map<String, String> templates() {
+        String baseUri = LinkTemplate.baseUri();
+        Map<String, String> templates = new LinkedHashMap<>();
+        templates.put(IanaLinkRelations.SELF.value(), self.toTemplate(baseUri, "id"));
+        templates.put(PRODUITS_REL.value(), collection.toTemplate(baseUri, null));
+        templates.put(CATEGORIE_REL.value(), categorie.toTemplate(baseUri, "categorieId"));
+        return templates;
+    }
+
+    private List<EntityModel<ProduitSummary>> toModels(Iterable<? extends ProduitSummary> entities, String baseUri) {
+        List<EntityModel<ProduitSummary>> models = new ArrayList<>();
+        for (ProduitSummary produit : entities) {
+            models.add(toModel(produit, baseUri));
+        }
+        return models;
+    }
+
+    private EntityModel<ProduitSummary> toModel(ProduitSummary produit, String baseUri) {
+        return EntityModel.of(produit,
+                self.toLink(baseUri, produit.id(), IanaLinkRelations.SELF),
+                collection.toLink(baseUri, PRODUITS_REL),
+                categorie.toLink(baseUri, produit.categorieId(), CATEGORIE_REL));
+    }
+}
@@ -0,0 +1,55 @@
+package com.souleymanesy.eshop_microservices.assembler;
+
+import com.souleymanesy.eshop_microservices.controller.UserController;
+import com.souleymanesy.eshop_microservices.dto.UserSummary;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class UserModelAssembler implements RepresentationModelAssembler<UserSummary, EntityModel<UserSummary>> {
+
+    private static final LinkRelation USERS_REL = LinkRelation.of("users");
+    private static final LinkRelation COMMANDES_REL = LinkRelation.of("commandes");
+
+    private final LinkTemplate self = LinkTemplate.of(UserController.class, "/{id}");
+    private final LinkTemplate collection = LinkTemplate.of(UserController.class, "");
+    private final LinkTemplate commandes = LinkTemplate.of(UserController.class, "/{id}/commandes");
+
+    @Override
+    public EntityModel<UserSummary> toModel(UserSummary user) {
+        return toModel(user, LinkTemplate.baseUri());
+    }
+
+    @Override
+    public CollectionModel<EntityModel<UserSummary>> toCollectionModel(Iterable<? extends UserSummary> entities) {
+        String baseUri = LinkTemplate.baseUri();
+        return CollectionModel.of(toModels(entities, baseUri), collection.toLink(baseUri, IanaLinkRelations.SELF));
+    }
+
+    // Modèles sans lien de collection, pour les enveloppes construites par le contrôleur (PagedModel...)
+    public List<EntityModel<UserSummary>> toModels(Iterable<? extends UserSummary> entities) {
+        return toModels(entities, LinkTemplate.baseUri());
+    }
+
+    private List<EntityModel<UserSummary>> toModels(Iterable<? extends UserSummary> entities, String baseUri) {
+        List<EntityModel<UserSummary>> models = new ArrayList<>();
+        for (UserSummary user : entities) {
+            models.add(toModel(user, baseUri));
+        }
+        return models;
+    }
+
+    private EntityModel<UserSummary> toModel(UserSummary user, String baseUri) {
+        return EntityModel.of(user,
+                self.toLink(baseUri, user.id(), IanaLinkRelations.SELF),
+                collection.toLink(baseUri, USERS_REL),
+                commandes.toLink(baseUri, user.id(), COMMANDES_REL));
+    }
+}
@@ -0,0 +1,112 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Limite adaptative du nombre de requêtes d'écriture traitées en même temps, réglée sur l'attente
+ * d'une connexion au pool Hikari du primaire (timer {@code hikaricp.connections.acquire}).
+ * <p>
+ * À chaque échantillon, si l'attente moyenne dépasse {@code target-wait-ms}, la limite baisse d'un
+ * quart (sans descendre sous {@code min-limit}) ; sinon elle remonte d'une unité si elle a été
+ * atteinte pendant l'intervalle. Au-delà de la limite, les requêtes sont refusées tout de suite
+ * (503) au lieu d'attendre une connexion et de ralentir tout le monde, lectures comprises.
+ */
+@Component
+public class AdaptiveConcurrencyLimit {
+
+    private final ObjectProvider<HikariDataSource> pools;
+    private final MeterRegistry meterRegistry;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double targetWaitMs;
+
+    private final AtomicInteger enCours = new AtomicInteger();
+    private volatile int limite;
+    private volatile boolean atteinte;
+    private double attenteTotaleMs;
+    private long acquisitions;
+
+    @Autowired
+    public AdaptiveConcurrencyLimit(ObjectProvider<HikariDataSource> pools, MeterRegistry meterRegistry,
+                                    @Value("${eshop.concurrency.initial-limit:40}") int initialLimit,
+                                    @Value("${eshop.concurrency.min-limit:4}") int minLimit,
+                                    @Value("${eshop.concurrency.max-limit:200}") int maxLimit,
+                                    @Value("${eshop.concurrency.target-wait-ms:20}") double targetWaitMs) {
+        this.pools = pools;
+        this.meterRegistry = meterRegistry;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetWaitMs = targetWaitMs;
+        this.limite = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        Gauge.builder("eshop.concurrency.limit", this, AdaptiveConcurrencyLimit::getLimite).register(meterRegistry);
+        Gauge.builder("eshop.concurrency.in-flight", enCours, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // Vrai si la requête peut être traitée ; elle doit alors appeler release() en fin de traitement
+    public boolean tryAcquire() {
+        while (true) {
+            int actuel = enCours.get();
+            if (actuel >= limite) {
+                atteinte = true;
+                return false;
+            }
+            if (enCours.compareAndSet(actuel, actuel + 1)) {
+                if (actuel + 1 == limite) {
+                    atteinte = true;
+                }
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        enCours.decrementAndGet();
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    @Scheduled(fixedDelayString = "${eshop.concurrency.sample-interval-ms:250}")
+    void echantillonner() {
+        Set<String> primaires = pools.orderedStream()
+                .filter(pool -> !pool.isReadOnly())
+                .map(HikariDataSource::getPoolName)
+                .collect(Collectors.toSet());
+        double total = 0;
+        long nombre = 0;
+        for (Timer timer : meterRegistry.find("hikaricp.connections.acquire").timers()) {
+            if (primaires.contains(timer.getId().getTag("pool"))) {
+                total += timer.totalTime(TimeUnit.MILLISECONDS);
+                nombre += timer.count();
+            }
+        }
+        double attenteMoyenne = nombre > acquisitions ? (total - attenteTotaleMs) / (nombre - acquisitions) : 0;
+        attenteTotaleMs = total;
+        acquisitions = nombre;
+        ajuster(attenteMoyenne);
+    }
+
+    // Diminution multiplicative si le pool sature, augmentation additive si la limite a servi
+    void ajuster(double attenteMoyenneMs) {
+        if (attenteMoyenneMs > targetWaitMs) {
+            limite = Math.max(minLimit, limite - Math.max(1, limite / 4));
+        } else if (atteinte) {
+            limite = Math.min(maxLimit, limite + 1);
+        }
+        atteinte = false;
+    }
+}
@@ -0,0 +1,274 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.souleymanesy.eshop_microservices.service.IdempotenceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * En-tête {@code Idempotency-Key} sur POST /api/commandes : une nouvelle tentative du client avec
+ * la même clé reçoit la réponse de la première exécution (en-tête {@code Idempotent-Replayed}),
+ * sans créer une seconde commande.
+ * <p>
+ * Trois niveaux, du plus rapide au plus sûr :
+ * <ul>
+ *     <li>réponses récentes dans un cache LRU borné avec expiration (Caffeine) : un rejeu ne
+ *     touche pas la base ;</li>
+ *     <li>doublons simultanés sur l'instance regroupés sur une seule exécution, les autres
+ *     attendent sa réponse ;</li>
+ *     <li>table {@code idempotence_cle} ({@link IdempotenceService}), partagée entre les
+ *     instances et conservée aux redémarrages.</li>
+ * </ul>
+ * La clé ne dépend que de l'en-tête (empreinte SHA-256 stockée), pas de l'adresse du client : un
+ * mobile qui réessaie après être passé du Wi-Fi au réseau cellulaire retrouve sa réponse. Une clé
+ * réutilisée avec un autre corps reçoit 422.
+ * <p>
+ * Les erreurs serveur et les 429 ne sont ni enregistrés ni transmis aux doublons en attente (409) :
+ * la même clé peut être réessayée. Le délestage ({@link RateLimitFilter}) passe avant ce filtre,
+ * une requête refusée ne réserve pas de clé. Sans l'en-tête, la requête passe telle quelle.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+    private static final int CLE_MAX = 255;
+    // Une instance par thread : MessageDigest.getInstance cherche le fournisseur à chaque appel
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final IdempotenceService idempotenceService;
+    private final Cache<String, IdempotenceService.Reponse> reponses;
+    // Exécutions en cours sur cette instance, par clé
+    private final ConcurrentMap<String, CompletableFuture<IdempotenceService.Reponse>> executions = new ConcurrentHashMap<>();
+    private final long waitMs;
+    private final Counter rejeux;
+
+    @Autowired
+    public IdempotencyFilter(IdempotenceService idempotenceService, MeterRegistry meterRegistry,
+                             @Value("${eshop.idempotence.cache-size:10000}") long cacheSize,
+                             @Value("${eshop.idempotence.wait-ms:10000}") long waitMs) {
+        this.idempotenceService = idempotenceService;
+        this.reponses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(idempotenceService.getTtl())
+                .build();
+        this.waitMs = waitMs;
+        this.rejeux = Counter.builder("eshop.idempotence.rejeux").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !"/api/commandes".equals(
+                request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String entete = request.getHeader(HEADER);
+        if (entete == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (entete.isBlank() || entete.length() > CLE_MAX) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), HEADER + " invalide");
+            return;
+        }
+        String cle = empreinte(entete.getBytes(StandardCharsets.UTF_8));
+        byte[] corps = request.getInputStream().readAllBytes();
+        String empreinte = empreinte(corps);
+
+        IdempotenceService.Reponse connue = reponses.getIfPresent(cle);
+        if (connue != null) {
+            rejouer(connue, empreinte, response);
+            return;
+        }
+        CompletableFuture<IdempotenceService.Reponse> execution = new CompletableFuture<>();
+        CompletableFuture<IdempotenceService.Reponse> enCours = executions.putIfAbsent(cle, execution);
+        if (enCours != null) {
+            attendre(enCours, empreinte, response);
+            return;
+        }
+        try {
+            execution.complete(executer(cle, empreinte, new CorpsRelu(request, corps), response, chain));
+        } catch (IOException | ServletException | RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            executions.remove(cle, execution);
+        }
+    }
+
+    // Réponse à partager avec les doublons en attente : celle qui est enregistrée, sinon null
+    private IdempotenceService.Reponse executer(String cle, String empreinte, HttpServletRequest request,
+                                                HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        IdempotenceService.Reservation reservation = idempotenceService.reserver(cle, empreinte);
+        if (reservation.reponse() != null) {
+            reponses.put(cle, reservation.reponse());
+            rejouer(reservation.reponse(), empreinte, response);
+            return reservation.reponse();
+        }
+        if (!reservation.reservee()) {
+            // Même clé en cours d'exécution sur une autre instance
+            response.setStatus(HttpStatus.CONFLICT.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return null;
+        }
+        ContentCachingResponseWrapper capture = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, capture);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotenceService.liberer(cle, empreinte, reservation.dateCreation());
+            throw e;
+        }
+        IdempotenceService.Reponse reponse = new IdempotenceService.Reponse(empreinte, capture.getStatus(),
+                capture.getContentType(), capture.getHeader(HttpHeaders.LOCATION), capture.getContentAsByteArray());
+        IdempotenceService.Reponse enregistree = null;
+        if (reponse.statut() >= 500 || reponse.statut() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            idempotenceService.liberer(cle, empreinte, reservation.dateCreation());
+        } else if (idempotenceService.enregistrer(cle, reservation.dateCreation(), reponse)) {
+            reponses.put(cle, reponse);
+            enregistree = reponse;
+        }
+        // Sinon la clé a été reprise pendant l'exécution : c'est la réponse de la reprise qui sera rejouée
+        capture.copyBodyToResponse();
+        return enregistree;
+    }
+
+    // Doublon simultané : la réponse enregistrée par l'exécution en cours, ou 409 si elle tarde, échoue
+    // ou n'a rien enregistré
+    private void attendre(CompletableFuture<IdempotenceService.Reponse> enCours, String empreinte,
+                          HttpServletResponse response) throws IOException {
+        IdempotenceService.Reponse reponse = null;
+        try {
+            reponse = enCours.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Pas de réponse à partager
+        }
+        if (reponse == null) {
+            response.setStatus(HttpStatus.CONFLICT.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        rejouer(reponse, empreinte, response);
+    }
+
+    private void rejouer(IdempotenceService.Reponse reponse, String empreinte, HttpServletResponse response)
+            throws IOException {
+        if (!reponse.empreinte().equals(empreinte)) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), HEADER + " déjà utilisée pour une autre requête");
+            return;
+        }
+        rejeux.increment();
+        response.setStatus(reponse.statut());
+        response.setHeader(REPLAYED, "true");
+        if (reponse.typeContenu() != null) {
+            response.setContentType(reponse.typeContenu());
+        }
+        if (reponse.location() != null) {
+            response.setHeader(HttpHeaders.LOCATION, reponse.location());
+        }
+        response.setContentLength(reponse.corps().length);
+        response.getOutputStream().write(reponse.corps());
+    }
+
+    private static String empreinte(byte[] corps) {
+        return HexFormat.of().formatHex(SHA_256.get().digest(corps));
+    }
+
+    // Requête dont le corps, déjà lu pour l'empreinte, est relu depuis la mémoire
+    private static final class CorpsRelu extends HttpServletRequestWrapper {
+
+        private final byte[] corps;
+
+        CorpsRelu(HttpServletRequest request, byte[] corps) {
+            super(request);
+            this.corps = corps;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream source = new ByteArrayInputStream(corps);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return source.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Corps entièrement en mémoire : tout est disponible dès l'enregistrement du listener
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return source.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return source.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encodage = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encodage)));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Documentation OpenAPI (springdoc) hors du chemin de démarrage : ses beans, que springdoc marque
+ * non paresseux, ne sont créés qu'à la première requête sur /v3/api-docs ou /swagger-ui.
+ * <p>
+ * L'initialisation paresseuse n'est pas étendue au reste de l'application : les services et
+ * dépôts seraient alors construits pendant la première requête (que le démarrage rapide cherche
+ * justement à servir vite), et les beans {@code @Scheduled} jamais créés ne seraient jamais
+ * planifiés. Les post-processeurs et les {@code WebMvcConfigurer} de springdoc restent créés au
+ * démarrage, l'indicateur est sans effet sur eux.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyDocumentationConfig {
+
+    private static final String SPRINGDOC = "org.springdoc.";
+
+    @Bean
+    public static BeanFactoryPostProcessor springdocLazyInitialization() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (estSpringdoc(definition)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    // Classe du bean, ou classe de configuration qui déclare sa méthode @Bean
+    private static boolean estSpringdoc(BeanDefinition definition) {
+        String origine = definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null
+                ? annotated.getFactoryMethodMetadata().getDeclaringClassName()
+                : definition.getBeanClassName();
+        return origine != null && origine.startsWith(SPRINGDOC);
+    }
+}
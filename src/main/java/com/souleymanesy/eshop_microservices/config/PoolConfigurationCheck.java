@@ -0,0 +1,91 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vérifie les pools Hikari au démarrage, avant l'ouverture du port HTTP, et fait échouer le
+ * démarrage s'ils sont mal réglés.
+ * <p>
+ * Hikari corrige en silence (un avertissement dans les logs) plusieurs valeurs incohérentes :
+ * minimum-idle supérieur à maximum-pool-size, leak-detection-threshold hors bornes (détection
+ * désactivée), max-lifetime trop court (remis à 30 min). Le pool en service n'est alors plus celui
+ * qui a été configuré. S'y ajoute une règle propre à l'application : le pool du primaire doit
+ * garder des connexions pour les requêtes HTTP quand tous les threads de l'outbox des commandes en
+ * tiennent une. Enfin une connexion est empruntée à chaque pool : une base injoignable ou des
+ * identifiants faux arrêtent le démarrage.
+ */
+@Component
+public class PoolConfigurationCheck implements SmartInitializingSingleton {
+
+    // Bornes appliquées par Hikari (HikariConfig.validateNumerics)
+    private static final long MAX_LIFETIME_MIN = 30_000;
+    private static final long LEAK_DETECTION_MIN = 2_000;
+
+    private final ObjectProvider<HikariDataSource> pools;
+    private final int outboxThreads;
+
+    @Autowired
+    public PoolConfigurationCheck(ObjectProvider<HikariDataSource> pools,
+                                  @Value("${eshop.commande.outbox.threads:4}") int outboxThreads) {
+        this.pools = pools;
+        this.outboxThreads = outboxThreads;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> erreurs = new ArrayList<>();
+        pools.orderedStream().forEach(pool -> erreurs.addAll(verifier(pool, outboxThreads)));
+        if (!erreurs.isEmpty()) {
+            throw new IllegalStateException("Pool de connexions mal configuré : " + String.join(" ; ", erreurs));
+        }
+        pools.orderedStream().forEach(PoolConfigurationCheck::tester);
+    }
+
+    /**
+     * Incohérences de réglage d'un pool, vide s'il n'y en a pas. Le pool en lecture seule (réplica)
+     * n'est pas concerné par la règle de l'outbox.
+     */
+    static List<String> verifier(HikariConfig pool, int outboxThreads) {
+        String nom = pool.getPoolName() != null ? pool.getPoolName() : "dataSource";
+        int max = pool.getMaximumPoolSize();
+        List<String> erreurs = new ArrayList<>();
+        if (pool.getMinimumIdle() > max) {
+            erreurs.add(nom + " : minimum-idle (" + pool.getMinimumIdle() + ") > maximum-pool-size (" + max + ")");
+        }
+        if (pool.getMaxLifetime() != 0 && pool.getMaxLifetime() < MAX_LIFETIME_MIN) {
+            erreurs.add(nom + " : max-lifetime < " + MAX_LIFETIME_MIN + " ms");
+        }
+        long leak = pool.getLeakDetectionThreshold();
+        if (leak != 0 && (leak < LEAK_DETECTION_MIN || (pool.getMaxLifetime() != 0 && leak > pool.getMaxLifetime()))) {
+            erreurs.add(nom + " : leak-detection-threshold hors de [" + LEAK_DETECTION_MIN + " ms, max-lifetime]");
+        }
+        if (!pool.isReadOnly() && max <= outboxThreads) {
+            erreurs.add(nom + " : maximum-pool-size (" + max + ") <= eshop.commande.outbox.threads (" + outboxThreads
+                    + "), l'outbox peut prendre toutes les connexions");
+        }
+        return erreurs;
+    }
+
+    private static void tester(HikariDataSource pool) {
+        int timeout = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(pool.getValidationTimeout()));
+        try (Connection connection = pool.getConnection()) {
+            if (!connection.isValid(timeout)) {
+                throw new IllegalStateException("Connexion invalide sur le pool " + pool.getPoolName());
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Base injoignable depuis le pool " + pool.getPoolName(), e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    private final RateLimitProperties properties;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitConfig(RateLimitProperties properties, AdaptiveConcurrencyLimit concurrencyLimit,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.concurrencyLimit = concurrencyLimit;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(properties, concurrencyLimit, meterRegistry);
+    }
+
+    // Avant IdempotencyFilter et le DispatcherServlet : une requête refusée ne coûte rien de plus
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setOrder(RateLimitFilter.ORDER);
+        registration.setEnabled(properties.enabled());
+        return registration;
+    }
+}
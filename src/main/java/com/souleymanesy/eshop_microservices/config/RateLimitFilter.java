@@ -0,0 +1,188 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Délestage des routes d'écriture, avant la lecture du corps et tout accès à la base :
+ * <ul>
+ *     <li>seau à jetons par client et par route, 429 avec {@code Retry-After} s'il est vide ;</li>
+ *     <li>puis {@link AdaptiveConcurrencyLimit}, 503 avec {@code Retry-After} au-delà de la limite.</li>
+ * </ul>
+ * Filtre servlet placé devant les autres filtres de l'application ({@link #ORDER}), en particulier
+ * {@link IdempotencyFilter} : une requête refusée n'a réservé aucune clé d'idempotence en base.
+ * <p>
+ * Le client est la clé d'API de la requête quand elle fait partie des clés configurées
+ * ({@code eshop.rate-limit.api-keys}) : des clients derrière la même adresse (CGNAT, proxy
+ * d'entreprise) ne partagent pas un seau. Sinon c'est l'adresse distante : une clé inconnue ne
+ * compte pas, elle suffirait à changer de seau à chaque requête et à remplir la table des clients.
+ * Derrière un proxy, {@code server.forward-headers-strategy=native} remplace l'adresse par celle de
+ * {@code X-Forwarded-For}, seulement si la requête vient d'un proxy listé dans
+ * {@code server.tomcat.remoteip.internal-proxies}.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Après l'encodage et l'observation des requêtes HTTP (les refus restent mesurés), avant le reste
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+    private static final String PERMIS = RateLimitFilter.class.getName() + ".permis";
+
+    private final List<LimitedRoute> routes;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Counter rejetsConcurrence;
+
+    public RateLimitFilter(RateLimitProperties properties, AdaptiveConcurrencyLimit concurrencyLimit,
+                           MeterRegistry meterRegistry) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.apiKeyHeader = properties.apiKeyHeader();
+        this.apiKeys = properties.apiKeys();
+        this.routes = properties.routes().entrySet().stream()
+                .map(entry -> new LimitedRoute(entry.getKey(), entry.getValue(), meterRegistry))
+                .toList();
+        this.rejetsConcurrence = Counter.builder("eshop.rate-limit.rejets")
+                .tag("route", "*").tag("raison", "concurrence").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!admettre(request, response)) {
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            liberer(request);
+        }
+    }
+
+    // Réponse 429 ou 503 écrite si la requête est refusée ; une requête admise sur une route limitée
+    // tient une place de la limite de concurrence, rendue par liberer
+    private boolean admettre(HttpServletRequest request, HttpServletResponse response) {
+        String method = request.getMethod();
+        PathContainer path = null;
+        String client = null;
+        boolean limitee = false;
+        for (LimitedRoute route : routes) {
+            if (!route.matches(method)) {
+                continue;
+            }
+            if (path == null) {
+                path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+            }
+            if (!route.pattern.matches(path)) {
+                continue;
+            }
+            limitee = true;
+            if (client == null) {
+                client = client(request);
+            }
+            long attente = route.limiter.tryAcquire(client, System.nanoTime());
+            if (attente > 0) {
+                route.rejets.increment();
+                refuser(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(attente) + 1);
+                return false;
+            }
+        }
+        if (!limitee) {
+            return true;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            rejetsConcurrence.increment();
+            refuser(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return false;
+        }
+        request.setAttribute(PERMIS, Boolean.TRUE);
+        return true;
+    }
+
+    // Place rendue à la fin de la réponse : à la fin du traitement asynchrone s'il y en a un
+    // (onComplete est appelé aussi après un dépassement de délai ou une erreur)
+    private void liberer(HttpServletRequest request) {
+        if (request.getAttribute(PERMIS) == null) {
+            return;
+        }
+        request.removeAttribute(PERMIS);
+        if (!request.isAsyncStarted()) {
+            concurrencyLimit.release();
+            return;
+        }
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                concurrencyLimit.release();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    // Préfixe : une clé d'API ne peut pas prendre le seau d'une adresse
+    private String client(HttpServletRequest request) {
+        String cle = apiKeys.isEmpty() ? null : request.getHeader(apiKeyHeader);
+        return cle != null && apiKeys.contains(cle) ? "cle:" + cle : request.getRemoteAddr();
+    }
+
+    // Clients revenus à un seau plein : la table ne garde que ceux qui consomment
+    @Scheduled(fixedDelayString = "${eshop.rate-limit.purge-interval-ms:30000}")
+    void purger() {
+        long now = System.nanoTime();
+        routes.forEach(route -> route.limiter.purger(now));
+    }
+
+    private static void refuser(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    private static final class LimitedRoute {
+
+        private final PathPattern pattern;
+        private final Set<String> methods;
+        private final TokenBucketLimiter limiter;
+        private final Counter rejets;
+
+        LimitedRoute(String nom, RateLimitProperties.Route route, MeterRegistry meterRegistry) {
+            this.pattern = PathPatternParser.defaultInstance.parse(route.path());
+            this.methods = route.methods().stream().map(String::toUpperCase).collect(Collectors.toUnmodifiableSet());
+            this.limiter = new TokenBucketLimiter(route.ratePerSecond(), route.burst());
+            this.rejets = Counter.builder("eshop.rate-limit.rejets")
+                    .tag("route", nom).tag("raison", "debit").register(meterRegistry);
+        }
+
+        boolean matches(String method) {
+            return methods.isEmpty() || methods.contains(method);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Limites de débit par route ({@code eshop.rate-limit.routes.<nom>.*}) : un seau à jetons par client
+ * et par route. Le client est la clé d'API de {@code apiKeyHeader} si elle figure dans
+ * {@code apiKeys}, l'adresse distante sinon.
+ *
+ * @param apiKeyHeader en-tête portant la clé d'API
+ * @param apiKeys      clés d'API reconnues, chacune avec son propre seau ; une clé inconnue est ignorée
+ */
+@ConfigurationProperties("eshop.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled, Map<String, Route> routes,
+                                  @DefaultValue("X-API-Key") String apiKeyHeader, Set<String> apiKeys) {
+
+    public RateLimitProperties {
+        routes = routes != null ? routes : Map.of();
+        apiKeys = apiKeys != null ? Set.copyOf(apiKeys) : Set.of();
+    }
+
+    /**
+     * @param path          motif de chemin ({@code /api/commandes/**})
+     * @param methods       méthodes HTTP concernées, toutes si vide
+     * @param ratePerSecond jetons rendus par seconde
+     * @param burst         taille du seau : requêtes acceptées d'affilée
+     */
+    public record Route(String path, @DefaultValue List<String> methods, double ratePerSecond, int burst) {
+    }
+}
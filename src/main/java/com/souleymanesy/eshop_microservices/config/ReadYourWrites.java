@@ -0,0 +1,82 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Lecture de ses propres écritures avec des réplicas : après une commande, les lectures du même
+ * client restent sur le primaire pendant {@code eshop.datasource.replica.sticky-window}.
+ * <p>
+ * L'échéance suit le client dans un cookie, la requête qui écrit est collée elle aussi. Hors
+ * requête HTTP (tâches, exports en flux), rien n'est collé. Sans réplica configuré, ne fait rien.
+ */
+@Component
+public class ReadYourWrites {
+
+    static final String COOKIE = "eshop-primary-until";
+    private static final String ATTRIBUTE = ReadYourWrites.class.getName() + ".until";
+
+    private final boolean enabled;
+    private final Duration stickyWindow;
+
+    public ReadYourWrites(@Value("${eshop.datasource.replica.url:}") String replicaUrl,
+                          @Value("${eshop.datasource.replica.sticky-window-ms:5000}") long stickyWindowMs) {
+        this.enabled = !replicaUrl.isBlank();
+        this.stickyWindow = Duration.ofMillis(stickyWindowMs);
+    }
+
+    // Appelé après une écriture que le client relira aussitôt (saveCommande, passerCommande)
+    public void markWrite() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (!enabled || attributes == null) {
+            return;
+        }
+        long until = System.currentTimeMillis() + stickyWindow.toMillis();
+        attributes.getRequest().setAttribute(ATTRIBUTE, until);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, stickyWindow.toSeconds()));
+            response.addCookie(cookie);
+        }
+    }
+
+    // Vrai si la requête courante doit lire sur le primaire
+    boolean isSticky() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (!enabled || attributes == null) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        long now = System.currentTimeMillis();
+        if (request.getAttribute(ATTRIBUTE) instanceof Long until && until > now) {
+            return true;
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue()) > now;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes : null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.fr.FrenchLightStemFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.apache.lucene.analysis.util.ElisionFilterFactory;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * Analyseur des champs plein texte de l'index produit, déclaré via
+ * {@code hibernate.search.backend.analysis.configurer}.
+ * <p>
+ * Le même analyseur sert à l'indexation et à la requête : élision ("l'ordinateur" → "ordinateur"),
+ * minuscules, racinisation légère du français ("chaussures" et "chaussure" se retrouvent) puis
+ * suppression des accents ("télé" et "tele" aussi).
+ */
+public class RechercheAnalysisConfigurer implements LuceneAnalysisConfigurer {
+
+    public static final String FRANCAIS = "francais";
+
+    @Override
+    public void configure(LuceneAnalysisConfigurationContext context) {
+        context.analyzer(FRANCAIS).custom()
+                .tokenizer(StandardTokenizerFactory.class)
+                .tokenFilter(ElisionFilterFactory.class)
+                .tokenFilter(LowerCaseFilterFactory.class)
+                .tokenFilter(FrenchLightStemFilterFactory.class)
+                .tokenFilter(ASCIIFoldingFilterFactory.class);
+    }
+}
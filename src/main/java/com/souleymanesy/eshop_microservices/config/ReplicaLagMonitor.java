@@ -0,0 +1,81 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Retard du réplica mesuré par battement de coeur : le primaire écrit l'heure courante dans
+ * {@code replica_heartbeat}, on la relit sur le réplica une fois répliquée. La mesure ne dépend
+ * ni de {@code SHOW REPLICA STATUS} ni des droits REPLICATION CLIENT, et fonctionne aussi avec
+ * deux bases H2.
+ * <p>
+ * Chaque relevé lit le battement du réplica puis celui du primaire, avant d'en écrire un nouveau :
+ * le retard est l'écart entre les deux, nul quand le réplica a reçu le dernier battement écrit
+ * (par cette instance ou une autre). Comparer au battement qu'on vient d'écrire compterait
+ * l'intervalle entre deux relevés comme du retard.
+ * <p>
+ * Tant que le retard est inconnu (réplica injoignable, battement pas encore répliqué) ou dépasse
+ * {@code eshop.datasource.replica.max-lag-ms}, les lectures restent sur le primaire.
+ */
+public class ReplicaLagMonitor {
+
+    private static final long INCONNU = -1;
+    private static final String BATTEMENT = "SELECT battement FROM replica_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private volatile long lagMs = INCONNU;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("eshop.datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .description("Retard du réplica en millisecondes (-1 si inconnu)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${eshop.datasource.replica.lag-check-interval-ms:1000}")
+    public void refresh() {
+        lagMs = measure();
+        beat();
+    }
+
+    public boolean isWithinTolerance() {
+        long lag = lagMs;
+        return lag != INCONNU && lag <= maxLagMs;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    private void beat() {
+        long now = System.currentTimeMillis();
+        if (primary.update("UPDATE replica_heartbeat SET battement = ? WHERE id = 1", now) == 0) {
+            primary.update("INSERT INTO replica_heartbeat (id, battement) VALUES (1, ?)", now);
+        }
+    }
+
+    // Écart entre le dernier battement visible sur le primaire et celui visible sur le réplica
+    private long measure() {
+        try {
+            List<Long> surReplica = replica.queryForList(BATTEMENT, Long.class);
+            List<Long> surPrimaire = primary.queryForList(BATTEMENT, Long.class);
+            if (surReplica.isEmpty() || surPrimaire.isEmpty()) {
+                return INCONNU;
+            }
+            return Math.max(0, surPrimaire.get(0) - surReplica.get(0));
+        } catch (DataAccessException e) {
+            return INCONNU;
+        }
+    }
+}
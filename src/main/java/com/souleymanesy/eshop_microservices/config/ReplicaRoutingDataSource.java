@@ -0,0 +1,54 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Envoie les transactions {@code @Transactional(readOnly = true)} sur le réplica, tout le reste
+ * sur le primaire. La clé est évaluée à l'ouverture de la connexion physique : la source doit être
+ * enveloppée dans un {@code LazyConnectionDataSourceProxy} pour que le drapeau readOnly de la
+ * transaction soit déjà posé à ce moment-là.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Cible { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWrites readYourWrites;
+    private final Counter versPrimary;
+    private final Counter versReplica;
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                             ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        this.versPrimary = routed(meterRegistry, Cible.PRIMARY);
+        this.versReplica = routed(meterRegistry, Cible.REPLICA);
+        setTargetDataSources(Map.of(Cible.PRIMARY, primary, Cible.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !readYourWrites.isSticky() && lagMonitor.isWithinTolerance()) {
+            versReplica.increment();
+            return Cible.REPLICA;
+        }
+        versPrimary.increment();
+        return Cible.PRIMARY;
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, Cible cible) {
+        return Counter.builder("eshop.datasource.connections")
+                .description("Connexions ouvertes par source (primaire ou réplica)")
+                .tag("target", cible.name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
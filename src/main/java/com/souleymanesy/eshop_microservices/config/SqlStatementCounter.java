@@ -0,0 +1,26 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate sur le thread courant, sans modifier le SQL.
+ * Les requêtes JDBC directes (JdbcTemplate) ne passent pas par ici.
+ */
+class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    void reset() {
+        count.get()[0] = 0;
+    }
+
+    int get() {
+        return count.get()[0];
+    }
+}
@@ -0,0 +1,42 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Publie le nombre de requêtes SQL Hibernate de chaque requête HTTP (eshop.http.sql.statements,
+ * tags method et uri). Les requêtes exécutées pendant la sérialisation de la réponse (chargements
+ * paresseux) sont comptées ; les réponses asynchrones (exports en flux) ne le sont pas.
+ */
+class SqlStatementsInterceptor implements HandlerInterceptor {
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+
+    SqlStatementsInterceptor(SqlStatementCounter counter, MeterRegistry meterRegistry) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        counter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("eshop.http.sql.statements")
+                .description("Requêtes SQL Hibernate par requête HTTP")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(counter.get());
+    }
+}
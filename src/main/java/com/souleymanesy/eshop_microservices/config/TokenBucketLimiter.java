@@ -0,0 +1,67 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seau à jetons par client, sans verrou : chaque client n'a qu'un {@code long}, l'instant théorique
+ * où son seau serait de nouveau plein (GCRA, algorithme du taux de cellules générique). Une requête
+ * avance cet instant d'un intervalle ({@code 1 / ratePerSecond}) ; elle est refusée s'il dépasse
+ * maintenant de plus de {@code burst} intervalles. La mise à jour est un CAS sur un
+ * {@link AtomicLong} : pas de verrou ni de thread de remplissage.
+ * <p>
+ * Les clients dont le seau est de nouveau plein sont retirés par {@link #purger(long)}.
+ */
+public class TokenBucketLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final ConcurrentMap<String, AtomicLong> clients = new ConcurrentHashMap<>();
+
+    public TokenBucketLimiter(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("ratePerSecond > 0 et burst >= 1 requis");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+    }
+
+    /**
+     * Consomme un jeton du client.
+     *
+     * @return 0 si la requête passe, sinon le délai en nanosecondes avant le prochain jeton
+     */
+    public long tryAcquire(String client, long nowNanos) {
+        AtomicLong plein = clients.get(client);
+        if (plein == null) {
+            plein = clients.computeIfAbsent(client, c -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long actuel = plein.get();
+            long suivant = Math.max(actuel, nowNanos) + intervalNanos;
+            long attente = suivant - nowNanos - toleranceNanos;
+            if (attente > 0) {
+                return attente;
+            }
+            if (plein.compareAndSet(actuel, suivant)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Oublie les clients dont le seau est plein à {@code nowNanos} : ils repartiraient du même état.
+     * Un client qui consomme pendant la purge peut retrouver un seau plein, au pire une rafale de
+     * plus, ce qui évite tout verrou.
+     */
+    public int purger(long nowNanos) {
+        int avant = clients.size();
+        clients.values().removeIf(plein -> plein.get() - nowNanos <= 0);
+        return avant - clients.size();
+    }
+
+    public int clients() {
+        return clients.size();
+    }
+}
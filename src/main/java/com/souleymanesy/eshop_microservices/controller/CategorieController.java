@@ -1,88 +1,81 @@
 package com.souleymanesy.eshop_microservices.controller;
 
+import com.souleymanesy.eshop_microservices.assembler.CategorieModelAssembler;
+import com.souleymanesy.eshop_microservices.dto.CategorieSummary;
+import com.souleymanesy.eshop_microservices.dto.PurgeSummary;
 import com.souleymanesy.eshop_microservices.model.Categorie;
 import com.souleymanesy.eshop_microservices.service.CategorieService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @RestController
 @RequestMapping("/api/categories")
 public class CategorieController {
 
     private final CategorieService categorieService;
+    private final CategorieModelAssembler categorieAssembler;
 
     @Autowired
-    public CategorieController(CategorieService categorieService) {
+    public CategorieController(CategorieService categorieService, CategorieModelAssembler categorieAssembler) {
         this.categorieService = categorieService;
+        this.categorieAssembler = categorieAssembler;
     }
 
-    // GET all categories
+    // GET all categories (304 si la liste n'a pas changé)
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<Categorie>>> getAllCategories() {
-        List<EntityModel<Categorie>> categories = categorieService.getAllCategories().stream()
-                .map(categorie -> EntityModel.of(categorie,
-                        linkTo(methodOn(CategorieController.class).getCategorieById(categorie.getId())).withSelfRel(),
-                        linkTo(methodOn(CategorieController.class).getAllCategories()).withRel("categories")))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(CollectionModel.of(categories,
-                linkTo(methodOn(CategorieController.class).getAllCategories()).withSelfRel()));
+    public ResponseEntity<CollectionModel<EntityModel<CategorieSummary>>> getAllCategories(WebRequest request) {
+        List<CategorieSummary> categories = categorieService.getAllCategorieSummaries();
+        if (request.checkNotModified(ConditionalGet.etag("categories", categories, CategorieSummary::id, CategorieSummary::version))) {
+            return ConditionalGet.notModified();
+        }
+        return ConditionalGet.ok(categorieAssembler.toCollectionModel(categories));
     }
 
-    // GET category by ID
+    // GET category by ID (ETag / Last-Modified)
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Categorie>> getCategorieById(@PathVariable Long id) {
-        return categorieService.getCategorieById(id)
-                .map(categorie -> EntityModel.of(categorie,
-                        linkTo(methodOn(CategorieController.class).getCategorieById(categorie.getId())).withSelfRel(),
-                        linkTo(methodOn(CategorieController.class).getAllCategories()).withRel("categories")))
-                .map(ResponseEntity::ok)
+    public ResponseEntity<EntityModel<CategorieSummary>> getCategorieById(@PathVariable Long id, WebRequest request) {
+        return categorieService.getCategorieSummaryById(id)
+                .map(categorie -> request.checkNotModified(ConditionalGet.etag("categorie", categorie.id(), categorie.version()),
+                        ConditionalGet.lastModified(categorie.dateModification()))
+                        ? ConditionalGet.<EntityModel<CategorieSummary>>notModified()
+                        : ConditionalGet.ok(categorieAssembler.toModel(categorie)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     // POST (create) a new category
     @PostMapping
-    public ResponseEntity<EntityModel<Categorie>> createCategorie(@RequestBody Categorie categorie) {
+    public ResponseEntity<EntityModel<CategorieSummary>> createCategorie(@RequestBody Categorie categorie) {
         Categorie savedCategorie = categorieService.saveCategorie(categorie);
-        EntityModel<Categorie> categoryModel = EntityModel.of(savedCategorie,
-                linkTo(methodOn(CategorieController.class).getCategorieById(savedCategorie.getId())).withSelfRel(),
-                linkTo(methodOn(CategorieController.class).getAllCategories()).withRel("categories"));
-        return ResponseEntity.status(HttpStatus.CREATED).body(categoryModel);
+        return ResponseEntity.status(HttpStatus.CREATED).body(categorieAssembler.toModel(CategorieSummary.of(savedCategorie)));
     }
 
     // PUT (update) an existing category
     @PutMapping("/{id}")
-    public ResponseEntity<EntityModel<Categorie>> updateCategorie(@PathVariable Long id, @RequestBody Categorie categorie) {
+    public ResponseEntity<EntityModel<CategorieSummary>> updateCategorie(@PathVariable Long id, @RequestBody Categorie categorie) {
         return categorieService.getCategorieById(id)
                 .map(existingCategorie -> {
                     existingCategorie.setNom(categorie.getNom());
                     existingCategorie.setDescription(categorie.getDescription());
                     Categorie updatedCategorie = categorieService.saveCategorie(existingCategorie);
-                    EntityModel<Categorie> categoryModel = EntityModel.of(updatedCategorie,
-                            linkTo(methodOn(CategorieController.class).getCategorieById(updatedCategorie.getId())).withSelfRel(),
-                            linkTo(methodOn(CategorieController.class).getAllCategories()).withRel("categories"));
-                    return ResponseEntity.ok(categoryModel);
+                    return ResponseEntity.ok(categorieAssembler.toModel(CategorieSummary.of(updatedCategorie)));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // DELETE a category
+    // DELETE a category, 202 : l'avancement de la purge se suit sur /api/purges/{id}
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteCategorie(@PathVariable Long id) {
-        if (categorieService.getCategorieById(id).isPresent()) {
-            categorieService.deleteCategorie(id);
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<EntityModel<PurgeSummary>> deleteCategorie(@PathVariable Long id) {
+        return categorieService.deleteCategorie(id)
+                .map(PurgeController::toModel)
+                .map(model -> ResponseEntity.accepted().location(model.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(model))
+                .orElse(ResponseEntity.notFound().<EntityModel<PurgeSummary>>build());
     }
-}
\ No newline at end of file
+}
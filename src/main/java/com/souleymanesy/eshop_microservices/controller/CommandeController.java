@@ -1,23 +1,29 @@
 package com.souleymanesy.eshop_microservices.controller;
 
+import com.souleymanesy.eshop_microservices.assembler.CommandeModelAssembler;
+import com.souleymanesy.eshop_microservices.dto.CommandeSummary;
 import com.souleymanesy.eshop_microservices.model.Commande;
 import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.service.CommandeOutboxWorker;
 import com.souleymanesy.eshop_microservices.service.CommandeService;
+import com.souleymanesy.eshop_microservices.service.FileCommandesPleineException;
+import com.souleymanesy.eshop_microservices.service.StockInsuffisantException;
 import com.souleymanesy.eshop_microservices.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
 @RestController
 @RequestMapping("/api/commandes")
@@ -25,42 +31,47 @@ public class CommandeController {
 
     private final CommandeService commandeService;
     private final UserService userService;
+    private final CommandeModelAssembler commandeAssembler;
+    private final CommandeOutboxWorker commandeOutboxWorker;
+    private final long retryAfterSeconds;
 
     @Autowired
-    public CommandeController(CommandeService commandeService, UserService userService) {
+    public CommandeController(CommandeService commandeService, UserService userService,
+                              CommandeModelAssembler commandeAssembler, CommandeOutboxWorker commandeOutboxWorker,
+                              @Value("${eshop.commande.outbox.retry-after-seconds:5}") long retryAfterSeconds) {
         this.commandeService = commandeService;
         this.userService = userService;
+        this.commandeAssembler = commandeAssembler;
+        this.commandeOutboxWorker = commandeOutboxWorker;
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
     // GET all commandes
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<Commande>>> getAllCommandes() {
-        List<EntityModel<Commande>> commandes = commandeService.getAllCommandes().stream()
-                .map(commande -> EntityModel.of(commande,
-                        linkTo(methodOn(CommandeController.class).getCommandeById(commande.getId())).withSelfRel(),
-                        linkTo(methodOn(CommandeController.class).getAllCommandes()).withRel("commandes"),
-                        linkTo(methodOn(UserController.class).getUserById(commande.getUser().getId())).withRel("user")))
-                .collect(Collectors.toList());
+    public ResponseEntity<CollectionModel<EntityModel<CommandeSummary>>> getAllCommandes() {
+        return ResponseEntity.ok(commandeAssembler.toCollectionModel(commandeService.getAllCommandeSummaries()));
+    }
 
-        return ResponseEntity.ok(CollectionModel.of(commandes,
-                linkTo(methodOn(CommandeController.class).getAllCommandes()).withSelfRel()));
+    // GET export NDJSON (écrit en flux, sans charger la table en mémoire)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCommandes() {
+        StreamingResponseBody body = commandeService::exportCommandes;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     // GET commande by ID
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Commande>> getCommandeById(@PathVariable Long id) {
-        return commandeService.getCommandeById(id)
-                .map(commande -> EntityModel.of(commande,
-                        linkTo(methodOn(CommandeController.class).getCommandeById(commande.getId())).withSelfRel(),
-                        linkTo(methodOn(CommandeController.class).getAllCommandes()).withRel("commandes"),
-                        linkTo(methodOn(UserController.class).getUserById(commande.getUser().getId())).withRel("user")))
+    public ResponseEntity<EntityModel<CommandeSummary>> getCommandeById(@PathVariable Long id) {
+        return commandeService.getCommandeSummaryById(id)
+                .map(commandeAssembler::toModel)
                 .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().<EntityModel<Commande>>build());
+                .orElse(ResponseEntity.notFound().<EntityModel<CommandeSummary>>build());
     }
 
-    // POST (create) a new commande
+    // POST (create) a new commande ; avec "Prefer: respond-async", 202 et traitement en arrière-plan
     @PostMapping
-    public ResponseEntity<EntityModel<Commande>> createCommande(@RequestBody Commande commande) {
+    public ResponseEntity<EntityModel<CommandeSummary>> createCommande(@RequestBody Commande commande,
+                                                                       @RequestHeader(value = "Prefer", required = false) String prefer) {
         if (commande.getUser() != null && commande.getUser().getId() != null) {
             Optional<User> existingUser = userService.getUserById(commande.getUser().getId());
             if (existingUser.isPresent()) {
@@ -68,23 +79,55 @@ public class CommandeController {
                 if (commande.getDateCommande() == null) {
                     commande.setDateCommande(LocalDateTime.now());
                 }
-                Commande savedCommande = commandeService.saveCommande(commande);
-                EntityModel<Commande> orderModel = EntityModel.of(savedCommande,
-                        linkTo(methodOn(CommandeController.class).getCommandeById(savedCommande.getId())).withSelfRel(),
-                        linkTo(methodOn(CommandeController.class).getAllCommandes()).withRel("commandes"),
-                        linkTo(methodOn(UserController.class).getUserById(savedCommande.getUser().getId())).withRel("user"));
+                Commande savedCommande;
+                if (prefer != null && prefer.contains("respond-async")
+                        && commande.getLignes() != null && !commande.getLignes().isEmpty()) {
+                    return accepterCommande(commande);
+                }
+                if (commande.getLignes() != null && !commande.getLignes().isEmpty()) {
+                    // Commande avec lignes : réservation atomique du stock
+                    try {
+                        savedCommande = commandeService.passerCommande(commande);
+                    } catch (StockInsuffisantException e) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).<EntityModel<CommandeSummary>>build();
+                    } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().<EntityModel<CommandeSummary>>build();
+                    }
+                } else {
+                    savedCommande = commandeService.saveCommande(commande);
+                }
+                EntityModel<CommandeSummary> orderModel = commandeAssembler.toModel(CommandeSummary.of(savedCommande));
                 return ResponseEntity.status(HttpStatus.CREATED).body(orderModel);
             } else {
-                return ResponseEntity.badRequest().<EntityModel<Commande>>build();
+                return ResponseEntity.badRequest().<EntityModel<CommandeSummary>>build();
             }
         } else {
-            return ResponseEntity.badRequest().<EntityModel<Commande>>build();
+            return ResponseEntity.badRequest().<EntityModel<CommandeSummary>>build();
+        }
+    }
+
+    // Commande enregistrée EN_ATTENTE : le lien self sert à suivre son statut
+    private ResponseEntity<EntityModel<CommandeSummary>> accepterCommande(Commande commande) {
+        Commande acceptee;
+        try {
+            acceptee = commandeOutboxWorker.soumettre(commande);
+        } catch (FileCommandesPleineException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                    .<EntityModel<CommandeSummary>>build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().<EntityModel<CommandeSummary>>build();
         }
+        EntityModel<CommandeSummary> orderModel = commandeAssembler.toModel(CommandeSummary.of(acceptee));
+        return ResponseEntity.accepted()
+                .location(orderModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                .header("Preference-Applied", "respond-async")
+                .body(orderModel);
     }
 
     // PUT (update) an existing commande
     @PutMapping("/{id}")
-    public ResponseEntity<EntityModel<Commande>> updateCommande(@PathVariable Long id, @RequestBody Commande commande) {
+    public ResponseEntity<EntityModel<CommandeSummary>> updateCommande(@PathVariable Long id, @RequestBody Commande commande) {
         return commandeService.getCommandeById(id)
                 .map(existingCommande -> {
                     existingCommande.setDateCommande(commande.getDateCommande() != null ? commande.getDateCommande() : existingCommande.getDateCommande());
@@ -97,18 +140,15 @@ public class CommandeController {
                         if (newUser.isPresent()) {
                             existingCommande.setUser(newUser.get());
                         } else {
-                            return ResponseEntity.badRequest().<EntityModel<Commande>>build();
+                            return ResponseEntity.badRequest().<EntityModel<CommandeSummary>>build();
                         }
                     }
 
                     Commande updatedCommande = commandeService.saveCommande(existingCommande);
-                    EntityModel<Commande> orderModel = EntityModel.of(updatedCommande,
-                            linkTo(methodOn(CommandeController.class).getCommandeById(updatedCommande.getId())).withSelfRel(),
-                            linkTo(methodOn(CommandeController.class).getAllCommandes()).withRel("commandes"),
-                            linkTo(methodOn(UserController.class).getUserById(updatedCommande.getUser().getId())).withRel("user"));
+                    EntityModel<CommandeSummary> orderModel = commandeAssembler.toModel(CommandeSummary.of(updatedCommande));
                     return ResponseEntity.ok(orderModel);
                 })
-                .orElse(ResponseEntity.notFound().<EntityModel<Commande>>build());
+                .orElse(ResponseEntity.notFound().<EntityModel<CommandeSummary>>build());
     }
 
     // DELETE a commande
@@ -0,0 +1,67 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * GET conditionnels (If-None-Match / If-Modified-Since) : l'ETag est dérivé de la version
+ * {@code @Version} et vérifié par {@code WebRequest.checkNotModified} avant de construire les liens
+ * et de sérialiser le corps. Une réponse 304 ne coûte donc que la lecture de la version.
+ * <p>
+ * Les listes n'ont qu'un ETag, empreinte des couples (id, version) dans l'ordre : une suppression
+ * ne ferait pas avancer la plus récente date de modification, Last-Modified y serait faux.
+ * <p>
+ * Tous les ETags sont faibles : le corps dépend de l'en-tête Accept (JSON, Smile, CBOR) et de la
+ * compression gzip, un même ETag désigne donc des octets différents, ce qu'un ETag fort interdit
+ * (et Tomcat ne compresse jamais une réponse qui porte un ETag fort). If-None-Match compare de
+ * toute façon en mode faible. Les réponses portent {@code Vary: Accept} pour que le CDN garde une
+ * entrée par format.
+ */
+final class ConditionalGet {
+
+    // Le CDN et les clients gardent la réponse mais la revalident à chaque usage
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private ConditionalGet() {
+    }
+
+    static String etag(String type, Long id, Long version) {
+        return "W/\"" + type + "-" + id + "-" + version + "\"";
+    }
+
+    // ETag d'une liste ; extra porte ce qui change le corps sans changer les éléments (liens de pagination)
+    static <T> String etag(String type, List<T> items, Function<T, Long> id, Function<T, Long> version,
+                           Object... extra) {
+        StringBuilder empreinte = new StringBuilder();
+        for (T item : items) {
+            empreinte.append(id.apply(item)).append(':').append(version.apply(item)).append(';');
+        }
+        for (Object valeur : extra) {
+            empreinte.append(valeur).append(';');
+        }
+        return "W/\"" + type + "-" + DigestUtils.md5DigestAsHex(empreinte.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // -1 : pas de date connue (lignes antérieures à la colonne), seul l'ETag est comparé
+    static long lastModified(LocalDateTime dateModification) {
+        return dateModification != null ? dateModification.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    // ETag et Last-Modified sont déjà posés sur la réponse par checkNotModified
+    static <T> ResponseEntity<T> ok(T body) {
+        return ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).build();
+    }
+}
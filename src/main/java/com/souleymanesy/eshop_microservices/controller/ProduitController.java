@@ -1,20 +1,37 @@
 package com.souleymanesy.eshop_microservices.controller;
 
+import com.souleymanesy.eshop_microservices.assembler.ProduitModelAssembler;
+import com.souleymanesy.eshop_microservices.dto.ProduitBatchResult;
+import com.souleymanesy.eshop_microservices.dto.ProduitFiltre;
+import com.souleymanesy.eshop_microservices.dto.ProduitPage;
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
 import com.souleymanesy.eshop_microservices.model.Produit;
 import com.souleymanesy.eshop_microservices.service.ProduitService;
 import com.souleymanesy.eshop_microservices.service.CategorieService;
 import com.souleymanesy.eshop_microservices.model.Categorie;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.hateoas.EntityModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
@@ -23,65 +40,169 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 @RequestMapping("/api/produits")
 public class ProduitController {
 
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
     private final ProduitService produitService;
     private final CategorieService categorieService;
+    private final ProduitModelAssembler produitAssembler;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     @Autowired
-    public ProduitController(ProduitService produitService, CategorieService categorieService) {
+    public ProduitController(ProduitService produitService, CategorieService categorieService,
+                             ProduitModelAssembler produitAssembler,
+                             @Value("${eshop.pagination.default-size:20}") int defaultPageSize,
+                             @Value("${eshop.pagination.max-size:200}") int maxPageSize) {
         this.produitService = produitService;
         this.categorieService = categorieService;
+        this.produitAssembler = produitAssembler;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
-    // GET all produits
+    // GET all produits (pagination par curseur sur l'id, filtres optionnels) : ni total ni numéro de
+    // page, que le curseur ne connaît pas, seulement les liens next / prev (qui portent la taille)
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<Produit>>> getAllProduits() {
-        List<EntityModel<Produit>> produits = produitService.getAllProduits().stream()
-                .map(produit -> EntityModel.of(produit,
-                        linkTo(methodOn(ProduitController.class).getProduitById(produit.getId())).withSelfRel(),
-                        linkTo(methodOn(ProduitController.class).getAllProduits()).withRel("produits"),
-                        linkTo(methodOn(CategorieController.class).getCategorieById(produit.getCategorie().getId())).withRel("categorie")))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(CollectionModel.of(produits,
-                linkTo(methodOn(ProduitController.class).getAllProduits()).withSelfRel()));
+    public ResponseEntity<CollectionModel<EntityModel<ProduitSummary>>> getAllProduits(
+            @RequestParam(required = false) Long categorieId,
+            @RequestParam(required = false) Double minPrix,
+            @RequestParam(required = false) Double maxPrix,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        int pageSize = pageSize(size);
+        Slice<ProduitSummary> page = produitService.getProduits(new ProduitFiltre(categorieId, minPrix, maxPrix, inStock),
+                after, before, pageSize);
+        // Page inchangée (mêmes produits, mêmes versions, mêmes liens) : 304 sans construire le modèle
+        if (request.checkNotModified(etag("produits", page))) {
+            return ConditionalGet.notModified();
+        }
+        return ConditionalGet.ok(CollectionModel.of(produitAssembler.toModels(page.getContent()),
+                liensPage(page, categorieId, minPrix, maxPrix, inStock, after, before, pageSize)));
+    }
+
+    // GET all produits en Smile ou CBOR (Accept) : mêmes pages, liens des lignes remplacés par des gabarits
+    @GetMapping(produces = {SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<ProduitPage> getAllProduitsCompact(
+            @RequestParam(required = false) Long categorieId,
+            @RequestParam(required = false) Double minPrix,
+            @RequestParam(required = false) Double maxPrix,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer size,
+            WebRequest request) {
+        int pageSize = pageSize(size);
+        Slice<ProduitSummary> page = produitService.getProduits(new ProduitFiltre(categorieId, minPrix, maxPrix, inStock),
+                after, before, pageSize);
+        if (request.checkNotModified(etag("produits-compact", page))) {
+            return ConditionalGet.notModified();
+        }
+        Map<String, String> liens = new LinkedHashMap<>();
+        liensPage(page, categorieId, minPrix, maxPrix, inStock, after, before, pageSize)
+                .forEach(lien -> liens.put(lien.getRel().value(), lien.getHref()));
+        return ConditionalGet.ok(new ProduitPage(liens, produitAssembler.templates(), pageSize, page.getContent()));
     }
 
-    // GET produit by ID
+    private int pageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    private static String etag(String type, Slice<ProduitSummary> page) {
+        return ConditionalGet.etag(type, page.getContent(), ProduitSummary::id, ProduitSummary::version,
+                page.hasNext(), page.hasPrevious());
+    }
+
+    // self, puis next / prev autour des ids extrêmes de la page
+    private List<Link> liensPage(Slice<ProduitSummary> page, Long categorieId, Double minPrix, Double maxPrix,
+                                 Boolean inStock, Long after, Long before, int pageSize) {
+        List<Link> liens = new ArrayList<>();
+        liens.add(linkTo(methodOn(ProduitController.class).getAllProduits(categorieId, minPrix, maxPrix, inStock, after, before, pageSize, null)).withSelfRel());
+        List<ProduitSummary> content = page.getContent();
+        if (!content.isEmpty()) {
+            if (page.hasNext()) {
+                Long lastId = content.get(content.size() - 1).id();
+                liens.add(linkTo(methodOn(ProduitController.class).getAllProduits(categorieId, minPrix, maxPrix, inStock, lastId, null, pageSize, null)).withRel(IanaLinkRelations.NEXT));
+            }
+            if (page.hasPrevious()) {
+                Long firstId = content.get(0).id();
+                liens.add(linkTo(methodOn(ProduitController.class).getAllProduits(categorieId, minPrix, maxPrix, inStock, null, firstId, pageSize, null)).withRel(IanaLinkRelations.PREV));
+            }
+        }
+        return liens;
+    }
+
+    // GET recherche plein texte sur le nom et la description, résultats classés par pertinence
+    @GetMapping("/search")
+    public ResponseEntity<PagedModel<EntityModel<ProduitSummary>>> rechercherProduits(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().<PagedModel<EntityModel<ProduitSummary>>>build();
+        }
+        int pageSize = pageSize(size);
+        int numero = Math.max(0, page);
+        Page<ProduitSummary> resultats = produitService.rechercherProduits(q, numero, pageSize);
+        PagedModel<EntityModel<ProduitSummary>> pagedModel = PagedModel.of(produitAssembler.toModels(resultats.getContent()),
+                new PagedModel.PageMetadata(pageSize, numero, resultats.getTotalElements()),
+                linkTo(methodOn(ProduitController.class).rechercherProduits(q, numero, pageSize)).withSelfRel());
+        if (resultats.hasNext()) {
+            pagedModel.add(linkTo(methodOn(ProduitController.class).rechercherProduits(q, numero + 1, pageSize)).withRel(IanaLinkRelations.NEXT));
+        }
+        if (resultats.hasPrevious()) {
+            pagedModel.add(linkTo(methodOn(ProduitController.class).rechercherProduits(q, numero - 1, pageSize)).withRel(IanaLinkRelations.PREV));
+        }
+        return ResponseEntity.ok(pagedModel);
+    }
+
+    // GET export NDJSON (écrit en flux, sans charger la table en mémoire)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProduits() {
+        StreamingResponseBody body = produitService::exportProduits;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // GET produit by ID (ETag / Last-Modified)
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<Produit>> getProduitById(@PathVariable Long id) {
-        return produitService.getProduitById(id)
-                .map(produit -> EntityModel.of(produit,
-                        linkTo(methodOn(ProduitController.class).getProduitById(produit.getId())).withSelfRel(),
-                        linkTo(methodOn(ProduitController.class).getAllProduits()).withRel("produits"),
-                        linkTo(methodOn(CategorieController.class).getCategorieById(produit.getCategorie().getId())).withRel("categorie")))
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().<EntityModel<Produit>>build());
+    public ResponseEntity<EntityModel<ProduitSummary>> getProduitById(@PathVariable Long id, WebRequest request) {
+        return produitService.getProduitSummaryById(id)
+                .map(produit -> request.checkNotModified(ConditionalGet.etag("produit", produit.id(), produit.version()),
+                        ConditionalGet.lastModified(produit.dateModification()))
+                        ? ConditionalGet.<EntityModel<ProduitSummary>>notModified()
+                        : ConditionalGet.ok(produitAssembler.toModel(produit)))
+                .orElse(ResponseEntity.notFound().<EntityModel<ProduitSummary>>build());
     }
 
     // POST (create) a new produit
     @PostMapping
-    public ResponseEntity<EntityModel<Produit>> createProduit(@RequestBody Produit produit) {
+    public ResponseEntity<EntityModel<ProduitSummary>> createProduit(@RequestBody Produit produit) {
         if (produit.getCategorie() != null && produit.getCategorie().getId() != null) {
             Optional<Categorie> existingCategorie = categorieService.getCategorieById(produit.getCategorie().getId());
             if (existingCategorie.isPresent()) {
                 produit.setCategorie(existingCategorie.get());
                 Produit savedProduit = produitService.saveProduit(produit);
-                EntityModel<Produit> productModel = EntityModel.of(savedProduit,
-                        linkTo(methodOn(ProduitController.class).getProduitById(savedProduit.getId())).withSelfRel(),
-                        linkTo(methodOn(ProduitController.class).getAllProduits()).withRel("produits"),
-                        linkTo(methodOn(CategorieController.class).getCategorieById(savedProduit.getCategorie().getId())).withRel("categorie"));
+                EntityModel<ProduitSummary> productModel = produitAssembler.toModel(ProduitSummary.of(savedProduit));
                 return ResponseEntity.status(HttpStatus.CREATED).body(productModel);
             } else {
-                return ResponseEntity.badRequest().<EntityModel<Produit>>build();
+                return ResponseEntity.badRequest().<EntityModel<ProduitSummary>>build();
             }
         } else {
-            return ResponseEntity.badRequest().<EntityModel<Produit>>build();
+            return ResponseEntity.badRequest().<EntityModel<ProduitSummary>>build();
         }
     }
 
+    // POST import en masse : création (sans id) ou mise à jour (avec id), résultat par ligne
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProduitBatchResult>> saveProduitsBatch(@RequestBody List<Produit> produits) {
+        return ResponseEntity.ok(produitService.saveProduitsBatch(produits));
+    }
+
     // PUT (update) an existing produit
     @PutMapping("/{id}")
-    public ResponseEntity<EntityModel<Produit>> updateProduit(@PathVariable Long id, @RequestBody Produit produit) {
+    public ResponseEntity<EntityModel<ProduitSummary>> updateProduit(@PathVariable Long id, @RequestBody Produit produit) {
         return produitService.getProduitById(id)
                 .map(existingProduit -> {
                     existingProduit.setNom(produit.getNom());
@@ -94,18 +215,21 @@ public class ProduitController {
                         if (newCategorie.isPresent()) {
                             existingProduit.setCategorie(newCategorie.get());
                         } else {
-                            return ResponseEntity.badRequest().<EntityModel<Produit>>build();
+                            return ResponseEntity.badRequest().<EntityModel<ProduitSummary>>build();
                         }
                     }
 
-                    Produit updatedProduit = produitService.saveProduit(existingProduit);
-                    EntityModel<Produit> productModel = EntityModel.of(updatedProduit,
-                            linkTo(methodOn(ProduitController.class).getProduitById(updatedProduit.getId())).withSelfRel(),
-                            linkTo(methodOn(ProduitController.class).getAllProduits()).withRel("produits"),
-                            linkTo(methodOn(CategorieController.class).getCategorieById(updatedProduit.getCategorie().getId())).withRel("categorie"));
+                    Produit updatedProduit;
+                    try {
+                        updatedProduit = produitService.mettreAJourProduit(existingProduit, produit.getVersion());
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        // Version envoyée par le client périmée : le produit a changé depuis sa lecture
+                        return ResponseEntity.status(HttpStatus.CONFLICT).<EntityModel<ProduitSummary>>build();
+                    }
+                    EntityModel<ProduitSummary> productModel = produitAssembler.toModel(ProduitSummary.of(updatedProduit));
                     return ResponseEntity.ok(productModel);
                 })
-                .orElse(ResponseEntity.notFound().<EntityModel<Produit>>build());
+                .orElse(ResponseEntity.notFound().<EntityModel<ProduitSummary>>build());
     }
 
     // DELETE a produit
@@ -0,0 +1,46 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.souleymanesy.eshop_microservices.dto.PurgeSummary;
+import com.souleymanesy.eshop_microservices.service.PurgeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+// Avancement des purges lancées par DELETE /api/categories/{id} et DELETE /api/users/{id}
+@RestController
+@RequestMapping("/api/purges")
+public class PurgeController {
+
+    private final PurgeService purgeService;
+
+    @Autowired
+    public PurgeController(PurgeService purgeService) {
+        this.purgeService = purgeService;
+    }
+
+    // GET purges non terminées
+    @GetMapping
+    public ResponseEntity<CollectionModel<EntityModel<PurgeSummary>>> getPurgesEnCours() {
+        return ResponseEntity.ok(CollectionModel.of(purgeService.getPurgesEnCours().stream().map(PurgeController::toModel).toList(),
+                linkTo(methodOn(PurgeController.class).getPurgesEnCours()).withSelfRel()));
+    }
+
+    // GET purge by ID
+    @GetMapping("/{id}")
+    public ResponseEntity<EntityModel<PurgeSummary>> getPurgeById(@PathVariable Long id) {
+        return purgeService.getPurgeById(id)
+                .map(PurgeController::toModel)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().<EntityModel<PurgeSummary>>build());
+    }
+
+    static EntityModel<PurgeSummary> toModel(PurgeSummary purge) {
+        return EntityModel.of(purge,
+                linkTo(methodOn(PurgeController.class).getPurgeById(purge.id())).withSelfRel(),
+                linkTo(methodOn(PurgeController.class).getPurgesEnCours()).withRel("purges"));
+    }
+}
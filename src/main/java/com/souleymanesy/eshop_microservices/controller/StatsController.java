@@ -0,0 +1,81 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.souleymanesy.eshop_microservices.dto.StatJourSummary;
+import com.souleymanesy.eshop_microservices.dto.StatStatutSummary;
+import com.souleymanesy.eshop_microservices.dto.StatUserSummary;
+import com.souleymanesy.eshop_microservices.dto.StatsReconciliation;
+import com.souleymanesy.eshop_microservices.service.StatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
+
+// Agrégats des ventes, lus dans les tables stat_* sans parcourir les commandes
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    // Au plus un an de jours par requête, au plus 100 meilleurs clients
+    private static final int JOURS_MAX = 366;
+    private static final int TOP_MAX = 100;
+
+    private final StatsService statsService;
+
+    @Autowired
+    public StatsController(StatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    // GET chiffre d'affaires par jour, du 30e jour avant "au" (aujourd'hui par défaut) à "au"
+    @GetMapping("/jours")
+    public ResponseEntity<CollectionModel<StatJourSummary>> getStatsParJour(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate du,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate au) {
+        LocalDate fin = au != null ? au : LocalDate.now();
+        LocalDate debut = du != null ? du : fin.minusDays(29);
+        if (debut.isAfter(fin) || debut.plusDays(JOURS_MAX).isBefore(fin)) {
+            return ResponseEntity.badRequest().<CollectionModel<StatJourSummary>>build();
+        }
+        return ResponseEntity.ok(CollectionModel.of(statsService.getStatsParJour(debut, fin),
+                linkTo(methodOn(StatsController.class).getStatsParJour(debut, fin)).withSelfRel()));
+    }
+
+    // GET nombre de commandes par statut
+    @GetMapping("/statuts")
+    public ResponseEntity<CollectionModel<StatStatutSummary>> getStatsParStatut() {
+        return ResponseEntity.ok(CollectionModel.of(statsService.getStatsParStatut(),
+                linkTo(methodOn(StatsController.class).getStatsParStatut()).withSelfRel()));
+    }
+
+    // GET meilleurs clients (valeur cumulée décroissante)
+    @GetMapping("/users")
+    public ResponseEntity<CollectionModel<StatUserSummary>> getMeilleursClients(
+            @RequestParam(defaultValue = "10") int limit) {
+        int taille = Math.max(1, Math.min(limit, TOP_MAX));
+        return ResponseEntity.ok(CollectionModel.of(statsService.getMeilleursClients(taille),
+                linkTo(methodOn(StatsController.class).getMeilleursClients(taille)).withSelfRel()));
+    }
+
+    // GET valeur cumulée d'un utilisateur
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<EntityModel<StatUserSummary>> getStatsUser(@PathVariable Long userId) {
+        return statsService.getStatsUser(userId)
+                .map(stats -> EntityModel.of(stats,
+                        linkTo(methodOn(StatsController.class).getStatsUser(userId)).withSelfRel(),
+                        linkTo(methodOn(UserController.class).getUserById(userId)).withRel("user")))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().<EntityModel<StatUserSummary>>build());
+    }
+
+    // POST réconciliation : recalcul complet et rapport des écarts, corrigés si corriger=true
+    @PostMapping("/reconciliation")
+    public ResponseEntity<StatsReconciliation> reconcilier(@RequestParam(defaultValue = "false") boolean corriger) {
+        return ResponseEntity.ok(statsService.reconcilier(corriger));
+    }
+}
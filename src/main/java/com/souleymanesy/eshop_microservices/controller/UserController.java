@@ -1,16 +1,26 @@
 package com.souleymanesy.eshop_microservices.controller;
 
+import com.souleymanesy.eshop_microservices.assembler.CommandeModelAssembler;
+import com.souleymanesy.eshop_microservices.assembler.UserModelAssembler;
+import com.souleymanesy.eshop_microservices.dto.CommandeSummary;
+import com.souleymanesy.eshop_microservices.dto.PurgeSummary;
+import com.souleymanesy.eshop_microservices.dto.UserSummary;
 import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.service.CommandeService;
 import com.souleymanesy.eshop_microservices.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Window;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 
@@ -19,49 +29,76 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.*;
 public class UserController {
 
     private final UserService userService;
+    private final UserModelAssembler userAssembler;
+    private final CommandeService commandeService;
+    private final CommandeModelAssembler commandeAssembler;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserModelAssembler userAssembler,
+                          CommandeService commandeService, CommandeModelAssembler commandeAssembler,
+                          @Value("${eshop.pagination.default-size:20}") int defaultPageSize,
+                          @Value("${eshop.pagination.max-size:200}") int maxPageSize) {
         this.userService = userService;
+        this.userAssembler = userAssembler;
+        this.commandeService = commandeService;
+        this.commandeAssembler = commandeAssembler;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     // GET all users
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<User>>> getAllUsers() {
-        List<EntityModel<User>> users = userService.getAllUsers().stream()
-                .map(user -> EntityModel.of(user,
-                        linkTo(methodOn(UserController.class).getUserById(user.getId())).withSelfRel(),
-                        linkTo(methodOn(UserController.class).getAllUsers()).withRel("users")))
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(CollectionModel.of(users,
-                linkTo(methodOn(UserController.class).getAllUsers()).withSelfRel()));
+    public ResponseEntity<CollectionModel<EntityModel<UserSummary>>> getAllUsers() {
+        return ResponseEntity.ok(userAssembler.toCollectionModel(userService.getAllUserSummaries()));
     }
 
     // GET user by ID
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<User>> getUserById(@PathVariable Long id) {
-        return userService.getUserById(id)
-                .map(user -> EntityModel.of(user,
-                        linkTo(methodOn(UserController.class).getUserById(user.getId())).withSelfRel(),
-                        linkTo(methodOn(UserController.class).getAllUsers()).withRel("users")))
+    public ResponseEntity<EntityModel<UserSummary>> getUserById(@PathVariable Long id) {
+        return userService.getUserSummaryById(id)
+                .map(userAssembler::toModel)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // GET commandes d'un utilisateur, les plus récentes d'abord (curseur : date et id de la dernière commande reçue)
+    @GetMapping("/{id}/commandes")
+    public ResponseEntity<CollectionModel<EntityModel<CommandeSummary>>> getCommandesByUser(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        return commandeService.getCommandesByUser(id, afterDate, afterId, pageSize)
+                .map(window -> ResponseEntity.ok(toCollectionModel(id, window, afterDate, afterId, pageSize)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private CollectionModel<EntityModel<CommandeSummary>> toCollectionModel(Long userId, Window<CommandeSummary> window,
+                                                                     LocalDateTime afterDate, Long afterId, int pageSize) {
+        List<EntityModel<CommandeSummary>> commandes = commandeAssembler.toModels(window.getContent());
+        CollectionModel<EntityModel<CommandeSummary>> model = CollectionModel.of(commandes,
+                linkTo(methodOn(UserController.class).getCommandesByUser(userId, afterDate, afterId, pageSize)).withSelfRel());
+        if (window.hasNext()) {
+            CommandeSummary last = window.getContent().get(window.size() - 1);
+            model.add(linkTo(methodOn(UserController.class)
+                    .getCommandesByUser(userId, last.dateCommande(), last.id(), pageSize)).withRel(IanaLinkRelations.NEXT));
+        }
+        return model;
+    }
+
     // POST (create) a new user
     @PostMapping
-    public ResponseEntity<EntityModel<User>> createUser(@RequestBody User user) {
+    public ResponseEntity<EntityModel<UserSummary>> createUser(@RequestBody User user) {
         User savedUser = userService.saveUser(user);
-        EntityModel<User> userModel = EntityModel.of(savedUser,
-                linkTo(methodOn(UserController.class).getUserById(savedUser.getId())).withSelfRel(),
-                linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
-        return ResponseEntity.status(HttpStatus.CREATED).body(userModel);
+        return ResponseEntity.status(HttpStatus.CREATED).body(userAssembler.toModel(UserSummary.of(savedUser)));
     }
 
     // PUT (update) an existing user
     @PutMapping("/{id}")
-    public ResponseEntity<EntityModel<User>> updateUser(@PathVariable Long id, @RequestBody User user) {
+    public ResponseEntity<EntityModel<UserSummary>> updateUser(@PathVariable Long id, @RequestBody User user) {
         return userService.getUserById(id)
                 .map(existingUser -> {
                     existingUser.setUsername(user.getUsername());
@@ -70,22 +107,17 @@ public class UserController {
                     existingUser.setNom(user.getNom());
                     existingUser.setPrenom(user.getPrenom());
                     User updatedUser = userService.saveUser(existingUser);
-                    EntityModel<User> userModel = EntityModel.of(updatedUser,
-                            linkTo(methodOn(UserController.class).getUserById(updatedUser.getId())).withSelfRel(),
-                            linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
-                    return ResponseEntity.ok(userModel);
+                    return ResponseEntity.ok(userAssembler.toModel(UserSummary.of(updatedUser)));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // DELETE a user
+    // DELETE a user, 202 : l'avancement de la purge se suit sur /api/purges/{id}
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        if (userService.getUserById(id).isPresent()) {
-            userService.deleteUser(id);
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<EntityModel<PurgeSummary>> deleteUser(@PathVariable Long id) {
+        return userService.deleteUser(id)
+                .map(PurgeController::toModel)
+                .map(model -> ResponseEntity.accepted().location(model.getRequiredLink(IanaLinkRelations.SELF).toUri()).body(model))
+                .orElse(ResponseEntity.notFound().<EntityModel<PurgeSummary>>build());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.time.LocalDateTime;
+
+// Catégorie sans sa collection de produits (lien "produits" vers la liste filtrée)
+@Relation(itemRelation = "categorie", collectionRelation = "categorieList")
+public record CategorieSummary(Long id, String nom, String description, Long version,
+                               LocalDateTime dateModification) {
+
+    public static CategorieSummary of(Categorie categorie) {
+        return new CategorieSummary(categorie.getId(), categorie.getNom(), categorie.getDescription(), categorie.getVersion(),
+                categorie.getDateModification());
+    }
+}
@@ -0,0 +1,11 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Une ligne de la jointure commande / ligne_commande, regroupée ensuite en {@link CommandeSummary}.
+ * Les colonnes de la ligne sont nulles pour une commande sans lignes (jointure externe).
+ */
+public record CommandeLigneRow(Long commandeId, LocalDateTime dateCommande, double montantTotal, String statut,
+                               Long userId, Long ligneId, Long produitId, Integer quantite, Double prixUnitaire) {
+}
@@ -0,0 +1,28 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import com.souleymanesy.eshop_microservices.model.Commande;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Relation(itemRelation = "commande", collectionRelation = "commandeList")
+public record CommandeSummary(Long id, LocalDateTime dateCommande, double montantTotal, String statut, Long userId,
+                              List<LigneCommandeSummary> lignes) {
+
+    // Pour les requêtes "select new" : les lignes sont lues séparément
+    public CommandeSummary(Long id, LocalDateTime dateCommande, double montantTotal, String statut, Long userId) {
+        this(id, dateCommande, montantTotal, statut, userId, List.of());
+    }
+
+    public CommandeSummary withLignes(List<LigneCommandeSummary> lignes) {
+        return new CommandeSummary(id, dateCommande, montantTotal, statut, userId, lignes);
+    }
+
+    public static CommandeSummary of(Commande commande) {
+        List<LigneCommandeSummary> lignes = commande.getLignes() == null ? List.of()
+                : commande.getLignes().stream().map(LigneCommandeSummary::of).toList();
+        return new CommandeSummary(commande.getId(), commande.getDateCommande(), commande.getMontantTotal(),
+                commande.getStatut(), commande.getUser() != null ? commande.getUser().getId() : null, lignes);
+    }
+}
@@ -0,0 +1,10 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import com.souleymanesy.eshop_microservices.model.LigneCommande;
+
+public record LigneCommandeSummary(Long id, Long produitId, int quantite, double prixUnitaire) {
+
+    public static LigneCommandeSummary of(LigneCommande ligne) {
+        return new LigneCommandeSummary(ligne.getId(), ligne.getProduitId(), ligne.getQuantite(), ligne.getPrixUnitaire());
+    }
+}
@@ -0,0 +1,16 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+/**
+ * Résultat d'une ligne de POST /api/produits/batch.
+ *
+ * @param index  position de la ligne dans la requête
+ * @param id     identifiant du produit créé ou mis à jour (null si la ligne n'a pas été enregistrée)
+ * @param statut CREE, MIS_A_JOUR, REJETE (ligne invalide) ou ECHEC (erreur base de données sur son lot)
+ */
+public record ProduitBatchResult(int index, Long id, String statut, String message) {
+
+    public static final String CREE = "CREE";
+    public static final String MIS_A_JOUR = "MIS_A_JOUR";
+    public static final String REJETE = "REJETE";
+    public static final String ECHEC = "ECHEC";
+}
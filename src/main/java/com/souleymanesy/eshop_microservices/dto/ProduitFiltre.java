@@ -0,0 +1,11 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+/**
+ * Critères de GET /api/produits ; un critère null n'est pas appliqué.
+ *
+ * @param inStock true : uniquement les produits en stock, false : uniquement ceux en rupture
+ */
+public record ProduitFiltre(Long categorieId, Double minPrix, Double maxPrix, Boolean inStock) {
+
+    public static final ProduitFiltre AUCUN = new ProduitFiltre(null, null, null, null);
+}
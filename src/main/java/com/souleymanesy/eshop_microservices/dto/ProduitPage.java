@@ -0,0 +1,14 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page de /api/produits en représentation compacte (Smile, CBOR). Les liens de chaque ligne, qui ne
+ * diffèrent que par un id, sont remplacés par des gabarits d'URI ({@code templates}) à compléter
+ * avec les champs de la ligne, par exemple {@code {categorieId}}. {@code links} porte les liens de
+ * la page (self, next, prev) ; comme en HAL, la pagination par curseur ne publie que la taille.
+ */
+public record ProduitPage(Map<String, String> links, Map<String, String> templates, int size,
+                          List<ProduitSummary> items) {
+}
@@ -0,0 +1,22 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import com.souleymanesy.eshop_microservices.model.Produit;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Représentation d'un produit en lecture, construite directement par la requête
+ * ({@code select new ...}) sans entité gérée.
+ */
+@Relation(itemRelation = "produit", collectionRelation = "produitList")
+public record ProduitSummary(Long id, String nom, String description, double prix, int quantiteStock,
+                             Long version, LocalDateTime dateModification, Long categorieId) {
+
+    // Réponse d'une écriture : l'id de la catégorie est lu sans charger le proxy
+    public static ProduitSummary of(Produit produit) {
+        return new ProduitSummary(produit.getId(), produit.getNom(), produit.getDescription(), produit.getPrix(),
+                produit.getQuantiteStock(), produit.getVersion(), produit.getDateModification(),
+                produit.getCategorie() != null ? produit.getCategorie().getId() : null);
+    }
+}
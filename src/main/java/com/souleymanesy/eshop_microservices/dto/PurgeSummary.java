@@ -0,0 +1,17 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import com.souleymanesy.eshop_microservices.model.Purge;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.time.LocalDateTime;
+
+// Avancement de la purge d'une catégorie (produits) ou d'un utilisateur (commandes) supprimé
+@Relation(itemRelation = "purge", collectionRelation = "purgeList")
+public record PurgeSummary(Long id, String type, Long cibleId, long enfantsTotal, long enfantsSupprimes,
+                           LocalDateTime dateDemande, LocalDateTime dateFin) {
+
+    public static PurgeSummary of(Purge purge) {
+        return new PurgeSummary(purge.getId(), purge.getType(), purge.getCibleId(), purge.getEnfantsTotal(),
+                purge.getEnfantsSupprimes(), purge.getDateDemande(), purge.getDateFin());
+    }
+}
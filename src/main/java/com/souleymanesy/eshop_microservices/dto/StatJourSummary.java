@@ -0,0 +1,10 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import org.springframework.hateoas.server.core.Relation;
+
+import java.time.LocalDate;
+
+// Ventes d'un jour (commandes non rejetées)
+@Relation(itemRelation = "statJour", collectionRelation = "statJourList")
+public record StatJourSummary(LocalDate jour, long nombreCommandes, double chiffreAffaires) {
+}
@@ -0,0 +1,8 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import org.springframework.hateoas.server.core.Relation;
+
+// Nombre de commandes d'un statut
+@Relation(itemRelation = "statStatut", collectionRelation = "statStatutList")
+public record StatStatutSummary(String statut, long nombreCommandes) {
+}
@@ -0,0 +1,8 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import org.springframework.hateoas.server.core.Relation;
+
+// Valeur cumulée des commandes non rejetées d'un utilisateur
+@Relation(itemRelation = "statUser", collectionRelation = "statUserList")
+public record StatUserSummary(Long userId, long nombreCommandes, double valeurTotale) {
+}
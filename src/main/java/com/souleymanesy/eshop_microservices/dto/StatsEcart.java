@@ -0,0 +1,9 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+/**
+ * Ligne d'agrégat qui ne correspond pas au recalcul depuis la table commande : {@code table} est
+ * stat_jour, stat_statut ou stat_user, {@code cle} le jour, le statut ou l'id de l'utilisateur.
+ */
+public record StatsEcart(String table, String cle, long nombreAttendu, long nombreStocke,
+                         double montantAttendu, double montantStocke) {
+}
@@ -0,0 +1,12 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import java.util.List;
+
+/**
+ * Résultat d'une réconciliation des agrégats : {@code ecarts} compte toutes les lignes divergentes,
+ * {@code details} n'en garde que les premières. {@code corrige} indique si les écarts ont été
+ * appliqués aux tables d'agrégats.
+ */
+public record StatsReconciliation(long commandesLues, int ecarts, List<StatsEcart> details, boolean corrige,
+                                  long dureeMs) {
+}
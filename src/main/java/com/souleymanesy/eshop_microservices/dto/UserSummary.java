@@ -0,0 +1,13 @@
+package com.souleymanesy.eshop_microservices.dto;
+
+import com.souleymanesy.eshop_microservices.model.User;
+import org.springframework.hateoas.server.core.Relation;
+
+// Utilisateur sans mot de passe ni commandes (lien "commandes" vers l'historique paginé)
+@Relation(itemRelation = "user", collectionRelation = "userList")
+public record UserSummary(Long id, String username, String email, String nom, String prenom) {
+
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.getNom(), user.getPrenom());
+    }
+}
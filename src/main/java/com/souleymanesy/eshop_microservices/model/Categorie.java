@@ -2,14 +2,29 @@ package com.souleymanesy.eshop_microservices.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.UpdateTimestamp;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Data
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categorie")
+// Catégories supprimées invisibles de toutes les lectures en attendant la purge de leurs produits
+@SQLRestriction("supprime_le is null")
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Categorie {
@@ -23,7 +38,39 @@ public class Categorie {
 
     private String description;
 
+    // Version et date de modification : ETag et Last-Modified de GET /api/categories/{id}
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @UpdateTimestamp
+    private LocalDateTime dateModification;
+
+    // Suppression logique (DELETE /api/categories/{id}) : les produits sont purgés par tranches, puis la ligne
+    @JsonIgnore
+    private LocalDateTime supprimeLe;
+
     @OneToMany(mappedBy = "categorie", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
+    @ToString.Exclude
     private List<Produit> produits;
-}
\ No newline at end of file
+
+    // Égalité sur l'identifiant seul (même règle dans toutes les entités) : ne charge ni les produits
+    // ni aucune relation, et le hashCode constant par classe reste stable quand l'id est attribué
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        Categorie other = (Categorie) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
@@ -2,15 +2,27 @@ package com.souleymanesy.eshop_microservices.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Entity
-@Data
+// Historique par utilisateur : filtre, tri et curseur sur l'index, colonnes affichées incluses
+// pour ne pas relire la table
+@Table(indexes = @Index(name = "idx_commande_user_date",
+        columnList = "user_id, date_commande, id, montant_total, statut"))
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Commande {
@@ -29,6 +41,30 @@ public class Commande {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonBackReference
+    @ToString.Exclude
     private User user;
 
-}
\ No newline at end of file
+    // Lignes d'une page de commandes chargées par lots plutôt qu'une requête par commande
+    @OneToMany(mappedBy = "commande", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
+    @JsonManagedReference("commande-lignes")
+    @ToString.Exclude
+    private List<LigneCommande> lignes;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        Commande other = (Commande) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
@@ -0,0 +1,55 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDateTime;
+
+// Commande acceptée en mode asynchrone, en attente de traitement (réservation du stock) ;
+// la ligne est supprimée dans la transaction qui fixe le statut final de la commande.
+// Après un échec, elle n'est reprise qu'à partir de prochainEssai (voir CommandeOutboxWorker)
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommandeOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private Long commandeId;
+
+    @Column(nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(nullable = false)
+    private int tentatives;
+
+    private LocalDateTime prochainEssai;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        CommandeOutbox other = (CommandeOutbox) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
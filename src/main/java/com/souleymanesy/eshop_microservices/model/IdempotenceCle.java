@@ -0,0 +1,65 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDateTime;
+
+// Clé Idempotency-Key d'un POST /api/commandes : réservée avant l'exécution (statut vide), puis
+// réponse enregistrée pour être rejouée aux nouvelles tentatives du client jusqu'à expireLe
+@Entity
+@Table(indexes = @Index(name = "idx_idempotence_cle_expire_le", columnList = "expire_le"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotenceCle {
+
+    @Id
+    private String cle;
+
+    // SHA-256 du corps de la requête : une clé réutilisée pour une autre requête est refusée
+    @Column(nullable = false, length = 64)
+    private String empreinte;
+
+    private Integer statut;
+
+    private String typeContenu;
+
+    @Column(length = 1024)
+    private String location;
+
+    // Corps JSON de la réponse
+    @Column(columnDefinition = "longtext")
+    @ToString.Exclude
+    private String corps;
+
+    @Column(nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(nullable = false)
+    private LocalDateTime expireLe;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        IdempotenceCle other = (IdempotenceCle) o;
+        return cle != null && cle.equals(other.getCle());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
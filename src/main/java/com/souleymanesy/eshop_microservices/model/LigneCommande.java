@@ -0,0 +1,63 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class LigneCommande {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "commande_id", nullable = false)
+    @JsonBackReference("commande-lignes")
+    @ToString.Exclude
+    private Commande commande;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "produit_id")
+    @JsonIgnore
+    @ToString.Exclude
+    private Produit produit;
+
+    // Identifiant du produit exposé en JSON (et reçu à la création de la commande)
+    @Column(name = "produit_id", insertable = false, updatable = false)
+    private Long produitId;
+
+    @Column(nullable = false)
+    private int quantite;
+
+    // Prix du produit au moment de la commande
+    private double prixUnitaire;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        LigneCommande other = (LigneCommande) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
@@ -1,24 +1,52 @@
 package com.souleymanesy.eshop_microservices.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.souleymanesy.eshop_microservices.config.RechercheAnalysisConfigurer;
 import jakarta.persistence.*; // Pour les annotations JPA
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+
+import java.time.LocalDateTime;
 
 @Entity
-@Data
+// Filtres de GET /api/produits : catégorie parcourue dans l'ordre des ids (pagination par curseur),
+// catégorie + fourchette de prix, fourchette de prix seule
+@Table(indexes = {
+        @Index(name = "idx_produit_categorie_id", columnList = "categorie_id, id"),
+        @Index(name = "idx_produit_categorie_prix", columnList = "categorie_id, prix"),
+        @Index(name = "idx_produit_prix", columnList = "prix")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produit")
+// Index plein texte (GET /api/produits/search), mis à jour à chaque écriture JPA sur nom ou description
+@Indexed(index = "produit")
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Produit {
 
+    // Séquence à allocation groupée (50 ids par appel) : compatible avec le batching JDBC, contrairement à IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produit_seq")
+    @SequenceGenerator(name = "produit_seq", sequenceName = "produit_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
+    @FullTextField(analyzer = RechercheAnalysisConfigurer.FRANCAIS)
     private String nom;
 
+    @FullTextField(analyzer = RechercheAnalysisConfigurer.FRANCAIS)
     private String description;
 
     @Column(nullable = false)
@@ -26,8 +54,35 @@ public class Produit {
 
     private int quantiteStock;
 
+    // Verrouillage optimiste : une mise à jour basée sur une version périmée est rejetée
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Renseignée à chaque écriture (en-tête Last-Modified de GET /api/produits/{id})
+    @UpdateTimestamp
+    private LocalDateTime dateModification;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categorie_id", nullable = false)
     @JsonBackReference
+    @ToString.Exclude
     private Categorie categorie;
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        Produit other = (Produit) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
@@ -0,0 +1,63 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDateTime;
+
+// Purge en arrière-plan des enfants d'une catégorie ou d'un utilisateur supprimé : curseur (dernier id
+// traité) et compteurs enregistrés à chaque tranche, la purge reprend là où elle s'est arrêtée
+@Entity
+@Table(name = "purge_suppression", indexes = @Index(name = "idx_purge_date_fin", columnList = "date_fin, id"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class Purge {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // CATEGORIE ou USER (constantes de PurgeService)
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false)
+    private Long cibleId;
+
+    // Enfants à supprimer au moment de la demande, enfants déjà supprimés
+    private long enfantsTotal;
+
+    private long enfantsSupprimes;
+
+    private long dernierId;
+
+    @Column(nullable = false)
+    private LocalDateTime dateDemande;
+
+    private LocalDateTime dateFin;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        Purge other = (Purge) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
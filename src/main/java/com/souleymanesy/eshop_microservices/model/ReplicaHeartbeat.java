@@ -0,0 +1,44 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+// Battement de coeur écrit sur le primaire et relu sur le réplica (ReplicaLagMonitor, en JDBC) ;
+// mappé pour que le schéma le crée (ddl-auto) ou le vérifie (Flyway + validate)
+@Entity
+@Table(name = "replica_heartbeat")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaHeartbeat {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long battement;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        ReplicaHeartbeat other = (ReplicaHeartbeat) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
@@ -0,0 +1,46 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDate;
+
+// Agrégat des ventes d'un jour (commandes non rejetées), tenu à jour par StatsService à chaque
+// écriture sur une commande
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatJour {
+
+    @Id
+    private LocalDate jour;
+
+    private long nombreCommandes;
+
+    private double chiffreAffaires;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        StatJour other = (StatJour) o;
+        return jour != null && jour.equals(other.getJour());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
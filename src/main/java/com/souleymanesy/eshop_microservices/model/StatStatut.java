@@ -0,0 +1,42 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+// Nombre de commandes par statut, tenu à jour par StatsService à chaque écriture sur une commande
+@Entity
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatStatut {
+
+    // Commandes sans statut comptées sous StatsService.SANS_STATUT
+    @Id
+    private String statut;
+
+    private long nombreCommandes;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        StatStatut other = (StatStatut) o;
+        return statut != null && statut.equals(other.getStatut());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
@@ -0,0 +1,45 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+// Valeur cumulée des commandes non rejetées d'un utilisateur, tenue à jour par StatsService ;
+// classement des meilleurs clients sur l'index
+@Entity
+@Table(indexes = @Index(name = "idx_stat_user_valeur", columnList = "valeur_totale"))
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatUser {
+
+    @Id
+    private Long userId;
+
+    private long nombreCommandes;
+
+    private double valeurTotale;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        StatUser other = (StatUser) o;
+        return userId != null && userId.equals(other.getUserId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
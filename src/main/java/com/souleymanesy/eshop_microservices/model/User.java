@@ -2,16 +2,26 @@ package com.souleymanesy.eshop_microservices.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.SQLRestriction;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "app_user")
-@Data
+// Utilisateurs supprimés invisibles de toutes les lectures en attendant la purge de leurs commandes
+@SQLRestriction("supprime_le is null")
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
@@ -24,6 +34,7 @@ public class User {
     private String username;
 
     @Column(nullable = false)
+    @ToString.Exclude
     private String password;
 
     @Column(unique = true, nullable = false)
@@ -32,7 +43,29 @@ public class User {
     private String nom;
     private String prenom;
 
+    // Suppression logique (DELETE /api/users/{id}) : les commandes sont purgées par tranches, puis la ligne
+    @JsonIgnore
+    private LocalDateTime supprimeLe;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
+    @ToString.Exclude
     private List<Commande> commandes;
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
+            return false;
+        }
+        User other = (User) o;
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Hibernate.getClassLazy(this).hashCode();
+    }
+}
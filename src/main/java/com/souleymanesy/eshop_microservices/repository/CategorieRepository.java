@@ -1,10 +1,25 @@
 package com.souleymanesy.eshop_microservices.repository;
 
 import com.souleymanesy.eshop_microservices.model.Categorie;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategorieRepository extends JpaRepository<Categorie, Long> {
 
-}
\ No newline at end of file
+    // Nom de la région du cache de requêtes qui contient la liste des catégories
+    String CATEGORIES_QUERY_REGION = "categories";
+
+    // Liste des catégories servie par le cache de requêtes (invalidée à chaque écriture sur la table)
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CATEGORIES_QUERY_REGION)
+    })
+    List<Categorie> findAll();
+}
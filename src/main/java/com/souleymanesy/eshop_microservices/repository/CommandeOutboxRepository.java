@@ -0,0 +1,24 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.model.CommandeOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CommandeOutboxRepository extends JpaRepository<CommandeOutbox, Long> {
+
+    // Verrou pris sans attendre (SKIP LOCKED) : une ligne déjà en cours de traitement, ici ou sur
+    // une autre instance, est simplement ignorée
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "-2"))
+    @Query("select o from CommandeOutbox o where o.id = :id")
+    Optional<CommandeOutbox> findAndLockById(Long id);
+}
@@ -1,12 +1,60 @@
 package com.souleymanesy.eshop_microservices.repository;
 
+import com.souleymanesy.eshop_microservices.dto.CommandeLigneRow;
+import com.souleymanesy.eshop_microservices.dto.CommandeSummary;
 import com.souleymanesy.eshop_microservices.model.Commande;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List; // Pour la liste des commandes par utilisateur
+import java.util.stream.Stream;
 
 @Repository
 public interface CommandeRepository extends JpaRepository<Commande, Long> {
 
-}
\ No newline at end of file
+    // Projections de lecture : une ligne par ligne de commande (regroupée par le service), ou la commande seule
+    String ROWS = "select new com.souleymanesy.eshop_microservices.dto.CommandeLigneRow("
+            + "c.id, c.dateCommande, c.montantTotal, c.statut, c.user.id, l.id, l.produitId, l.quantite, l.prixUnitaire) "
+            + "from Commande c left join c.lignes l ";
+
+    // Commandes d'un utilisateur supprimé, en attente de purge : exclues des listes et de l'export
+    String USER_ACTIF = "c.user.supprimeLe is null ";
+
+    String SUMMARY = "select new com.souleymanesy.eshop_microservices.dto.CommandeSummary("
+            + "c.id, c.dateCommande, c.montantTotal, c.statut, c.user.id) from Commande c ";
+
+    // Utilisateur et lignes chargés dans la même requête : pas de SELECT supplémentaire par commande
+    @Query("select c from Commande c join fetch c.user u left join fetch c.lignes where u.supprimeLe is null")
+    List<Commande> findAllWithUser();
+
+    // Commandes et lignes projetées en une seule requête, regroupées ensuite par commande
+    @Query(ROWS + "where " + USER_ACTIF + "order by c.id, l.id")
+    List<CommandeLigneRow> findAllSummaryRows();
+
+    @Query(ROWS + "where c.id = :id order by l.id")
+    List<CommandeLigneRow> findSummaryRowsById(Long id);
+
+    @Query(ROWS + "where c.id in :ids order by c.id, l.id")
+    List<CommandeLigneRow> findSummaryRowsByIds(Collection<Long> ids);
+
+    // Historique d'un utilisateur, du plus récent au plus ancien, par curseur (dateCommande, id) :
+    // parcours de idx_commande_user_date sans OFFSET ni COUNT, User.commandes n'est pas chargée
+    @Query(SUMMARY + "where c.user.id = :userId and " + USER_ACTIF + "order by c.dateCommande desc, c.id desc")
+    List<CommandeSummary> findSummariesByUser(Long userId, Limit limit);
+
+    @Query(SUMMARY + "where c.user.id = :userId and " + USER_ACTIF + "and (c.dateCommande < :afterDate "
+            + "or (c.dateCommande = :afterDate and c.id < :afterId)) order by c.dateCommande desc, c.id desc")
+    List<CommandeSummary> findSummariesByUserAfter(Long userId, LocalDateTime afterDate, Long afterId, Limit limit);
+
+    // Lecture en flux pour l'export : le driver ne ramène que fetchSize lignes à la fois
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(ROWS + "where " + USER_ACTIF + "order by c.id, l.id")
+    Stream<CommandeLigneRow> streamSummaryRows();
+}
@@ -0,0 +1,9 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.model.IdempotenceCle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotenceCleRepository extends JpaRepository<IdempotenceCle, String> {
+}
@@ -1,10 +1,36 @@
 package com.souleymanesy.eshop_microservices.repository;
 
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
 import com.souleymanesy.eshop_microservices.model.Produit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface ProduitRepository extends JpaRepository<Produit, Long> {
+public interface ProduitRepository extends JpaRepository<Produit, Long>, JpaSpecificationExecutor<Produit>,
+        ProduitRepositoryCustom {
+
+    // Catégorie chargée dans la même requête : pas de SELECT supplémentaire par produit.
+    // Les produits d'une catégorie supprimée (en attente de purge) sont exclus ici et dans l'export
+    @Query("select p from Produit p join fetch p.categorie c where c.supprimeLe is null")
+    List<Produit> findAllWithCategorie();
+
+    // Prix seul, sans entité gérée ni cache de second niveau (commande : relu après la réservation du stock)
+    @Query("select p.prix from Produit p where p.id = :id")
+    double findPrixById(Long id);
 
-}
\ No newline at end of file
+    // Lecture en flux pour l'export : le driver ne ramène que fetchSize lignes à la fois,
+    // projetées sans entité gérée (ni contexte de persistance qui grossit, ni cache de second niveau)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.souleymanesy.eshop_microservices.dto.ProduitSummary("
+            + "p.id, p.nom, p.description, p.prix, p.quantiteStock, p.version, p.dateModification, p.categorie.id) "
+            + "from Produit p join p.categorie c where c.supprimeLe is null order by p.id")
+    Stream<ProduitSummary> streamSummaries();
+}
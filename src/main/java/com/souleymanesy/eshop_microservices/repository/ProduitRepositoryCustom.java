@@ -0,0 +1,39 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProduitRepositoryCustom {
+
+    /**
+     * Produits répondant à {@code spec}, projetés en {@link ProduitSummary} dans la requête SQL
+     * (aucune entité chargée), triés et limités à {@code limit} lignes.
+     */
+    List<ProduitSummary> findSummaries(Specification<Produit> spec, Sort sort, int limit);
+
+    /**
+     * Décrémente le stock d'un produit en une seule instruction conditionnelle
+     * ({@code ... WHERE quantite_stock >= ?}), sans lecture préalable : deux réservations
+     * concurrentes ne peuvent pas vendre la même unité.
+     *
+     * @return 1 si le stock a été réservé, 0 si le produit n'existe pas ou si le stock est insuffisant
+     */
+    int reserverStock(Long produitId, int quantite);
+
+    /**
+     * Recherche plein texte sur le nom (pondéré double) et la description, dans l'index Lucene :
+     * ids de la page demandée, classés par pertinence. La syntaxe "simple query string" est
+     * acceptée ({@code "phrase exacte"}, {@code -exclu}, {@code préfixe*}) ; sans opérateur,
+     * tous les termes doivent être présents.
+     * <p>
+     * Au-delà de {@code eshop.search.total-hit-count-threshold} résultats, le total n'est plus
+     * compté exactement : c'est alors un minorant.
+     */
+    Page<Long> rechercherIds(String texte, Pageable pageable);
+}
@@ -0,0 +1,113 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.search.engine.search.common.BooleanOperator;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Listes projetées en Criteria, pour combiner les {@link Specification} de filtre avec un
+ * {@code select new} : les méthodes dérivées ne savent faire que l'un ou l'autre.
+ * <p>
+ * La réservation passe par JDBC (dans la transaction JPA courante) plutôt que par une requête
+ * JPQL {@code @Modifying} : Hibernate viderait toute la région "produit" du cache de second
+ * niveau à chaque commande. Ici seule l'entrée du produit réservé est évincée, après commit.
+ * Elle ne touche ni au nom ni à la description : l'index plein texte reste à jour.
+ */
+class ProduitRepositoryCustomImpl implements ProduitRepositoryCustom {
+
+    private static final String RESERVER_STOCK =
+            "update produit set quantite_stock = quantite_stock - ?, version = version + 1, date_modification = ? "
+                    + "where id = ? and quantite_stock >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final int totalHitCountThreshold;
+
+    @Autowired
+    ProduitRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                EntityManager entityManager,
+                                @Value("${eshop.search.total-hit-count-threshold:10000}") int totalHitCountThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityManager = entityManager;
+        this.totalHitCountThreshold = totalHitCountThreshold;
+    }
+
+    @Override
+    public List<ProduitSummary> findSummaries(Specification<Produit> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProduitSummary> query = cb.createQuery(ProduitSummary.class);
+        Root<Produit> root = query.from(Produit.class);
+        query.select(cb.construct(ProduitSummary.class, root.get("id"), root.get("nom"), root.get("description"),
+                root.get("prix"), root.get("quantiteStock"), root.get("version"), root.get("dateModification"),
+                root.get("categorie").get("id")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public int reserverStock(Long produitId, int quantite) {
+        int updated = jdbcTemplate.update(RESERVER_STOCK, quantite, LocalDateTime.now(), produitId, quantite);
+        if (updated > 0) {
+            evictAfterCommit(produitId);
+        }
+        return updated;
+    }
+
+    @Override
+    public Page<Long> rechercherIds(String texte, Pageable pageable) {
+        // Seuls les ids sortent de l'index : les lignes sont relues en base (stock, version à jour)
+        SearchResult<Long> result = Search.session(entityManager).search(Produit.class)
+                .select(f -> f.id(Long.class))
+                .where(f -> f.simpleQueryString()
+                        .field("nom").boost(2.0f)
+                        .field("description")
+                        .matching(texte)
+                        .defaultOperator(BooleanOperator.AND))
+                .totalHitCountThreshold(totalHitCountThreshold)
+                .fetch((int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(result.hits(), pageable, result.total().hitCountLowerBound());
+    }
+
+    private void evictAfterCommit(Long produitId) {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.evictEntityData(Produit.class, produitId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.evictEntityData(Produit.class, produitId);
+            }
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.dto.ProduitFiltre;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * Critères de recherche sur {@link Produit}, combinés en une seule clause WHERE.
+ * La catégorie est comparée sur la colonne categorie_id, sans jointure ; seul
+ * {@link #categorieActive()}, toujours présent dans {@link #filtre}, joint la catégorie.
+ */
+public final class ProduitSpecifications {
+
+    private ProduitSpecifications() {
+    }
+
+    public static Specification<Produit> filtre(ProduitFiltre filtre) {
+        Specification<Produit> spec = Specification.where(categorieActive());
+        if (filtre.categorieId() != null) {
+            spec = spec.and(categorie(filtre.categorieId()));
+        }
+        if (filtre.minPrix() != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("prix"), filtre.minPrix()));
+        }
+        if (filtre.maxPrix() != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("prix"), filtre.maxPrix()));
+        }
+        if (filtre.inStock() != null) {
+            spec = spec.and(filtre.inStock()
+                    ? (root, query, cb) -> cb.greaterThan(root.get("quantiteStock"), 0)
+                    : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("quantiteStock"), 0));
+        }
+        return spec;
+    }
+
+    public static Specification<Produit> categorie(Long categorieId) {
+        return (root, query, cb) -> cb.equal(root.get("categorie").get("id"), categorieId);
+    }
+
+    // Produits d'une catégorie supprimée, en attente de purge : exclus des listes et de la recherche
+    public static Specification<Produit> categorieActive() {
+        return (root, query, cb) -> cb.isNull(root.join("categorie").get("supprimeLe"));
+    }
+
+    public static Specification<Produit> idApres(Long id) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<Produit> idAvant(Long id) {
+        return (root, query, cb) -> cb.lessThan(root.get("id"), id);
+    }
+
+    public static Specification<Produit> ids(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+}
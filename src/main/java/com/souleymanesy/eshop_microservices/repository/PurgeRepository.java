@@ -0,0 +1,24 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.model.Purge;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PurgeRepository extends JpaRepository<Purge, Long> {
+
+    // Purges non terminées, dans l'ordre des demandes (index idx_purge_date_fin)
+    @Query("select p from Purge p where p.dateFin is null order by p.id")
+    List<Purge> findEnCours();
+
+    // Une seule instance traite une tranche d'une purge donnée à la fois
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Purge p where p.id = :id")
+    Optional<Purge> findForUpdateById(Long id);
+}
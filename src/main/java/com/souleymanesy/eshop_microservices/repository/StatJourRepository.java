@@ -0,0 +1,19 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.dto.StatJourSummary;
+import com.souleymanesy.eshop_microservices.model.StatJour;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface StatJourRepository extends JpaRepository<StatJour, LocalDate> {
+
+    // Lecture sur la clé primaire, sans entité gérée
+    @Query("select new com.souleymanesy.eshop_microservices.dto.StatJourSummary(s.jour, s.nombreCommandes, s.chiffreAffaires) "
+            + "from StatJour s where s.jour between :du and :au order by s.jour")
+    List<StatJourSummary> findSummaries(LocalDate du, LocalDate au);
+}
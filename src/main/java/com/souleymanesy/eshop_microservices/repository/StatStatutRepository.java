@@ -0,0 +1,17 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.dto.StatStatutSummary;
+import com.souleymanesy.eshop_microservices.model.StatStatut;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StatStatutRepository extends JpaRepository<StatStatut, String> {
+
+    @Query("select new com.souleymanesy.eshop_microservices.dto.StatStatutSummary(s.statut, s.nombreCommandes) "
+            + "from StatStatut s order by s.statut")
+    List<StatStatutSummary> findSummaries();
+}
@@ -0,0 +1,24 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.dto.StatUserSummary;
+import com.souleymanesy.eshop_microservices.model.StatUser;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StatUserRepository extends JpaRepository<StatUser, Long> {
+
+    @Query("select new com.souleymanesy.eshop_microservices.dto.StatUserSummary(s.userId, s.nombreCommandes, s.valeurTotale) "
+            + "from StatUser s where s.userId = :userId")
+    Optional<StatUserSummary> findSummaryById(Long userId);
+
+    // Meilleurs clients : parcours de l'index idx_stat_user_valeur en ordre décroissant
+    @Query("select new com.souleymanesy.eshop_microservices.dto.StatUserSummary(s.userId, s.nombreCommandes, s.valeurTotale) "
+            + "from StatUser s order by s.valeurTotale desc, s.userId")
+    List<StatUserSummary> findTop(Limit limit);
+}
@@ -1,10 +1,24 @@
 package com.souleymanesy.eshop_microservices.repository;
 
+import com.souleymanesy.eshop_microservices.dto.UserSummary;
 import com.souleymanesy.eshop_microservices.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-}
\ No newline at end of file
+    String SUMMARY = "select new com.souleymanesy.eshop_microservices.dto.UserSummary("
+            + "u.id, u.username, u.email, u.nom, u.prenom) from User u ";
+
+    // Lectures sans le mot de passe ni la collection des commandes
+    @Query(SUMMARY + "order by u.id")
+    List<UserSummary> findAllSummaries();
+
+    @Query(SUMMARY + "where u.id = :id")
+    Optional<UserSummary> findSummaryById(Long id);
+}
@@ -1,41 +1,86 @@
 package com.souleymanesy.eshop_microservices.service;
 
 
+import com.souleymanesy.eshop_microservices.dto.CategorieSummary;
+import com.souleymanesy.eshop_microservices.dto.PurgeSummary;
 import com.souleymanesy.eshop_microservices.model.Categorie;
 import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "eshop.service", histogram = true)
 public class CategorieService {
 
     private final CategorieRepository categorieRepository;
+    private final PurgeService purgeService;
+    private final EntityManagerFactory entityManagerFactory;
 
     @Autowired
-    public CategorieService(CategorieRepository categorieRepository) {
+    public CategorieService(CategorieRepository categorieRepository, PurgeService purgeService,
+                            EntityManagerFactory entityManagerFactory) {
         this.categorieRepository = categorieRepository;
+        this.purgeService = purgeService;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
-    // Méthode pour obtenir toutes les catégories
+    // Méthode pour obtenir toutes les catégories (cache de requêtes)
     public List<Categorie> getAllCategories() {
         return categorieRepository.findAll();
     }
 
-    // Méthode pour obtenir une catégorie par son ID
+    // Méthode pour obtenir une catégorie par son ID (cache de second niveau)
     public Optional<Categorie> getCategorieById(Long id) {
         return categorieRepository.findById(id);
     }
 
+    // Méthode pour lister les catégories en lecture seule, sans leurs produits
+    @Transactional(readOnly = true)
+    public List<CategorieSummary> getAllCategorieSummaries() {
+        return categorieRepository.findAll().stream().map(CategorieSummary::of).toList();
+    }
+
+    // Méthode pour obtenir une catégorie en lecture seule, sans ses produits
+    @Transactional(readOnly = true)
+    public Optional<CategorieSummary> getCategorieSummaryById(Long id) {
+        return categorieRepository.findById(id).map(CategorieSummary::of);
+    }
+
+    // Méthode pour obtenir plusieurs catégories en une seule requête, indexées par ID
+    public Map<Long, Categorie> getCategoriesByIds(Collection<Long> ids) {
+        return categorieRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Categorie::getId, Function.identity()));
+    }
+
     // Méthode pour créer ou mettre à jour une catégorie
     public Categorie saveCategorie(Categorie categorie) {
-        return categorieRepository.save(categorie);
+        Categorie savedCategorie = categorieRepository.save(categorie);
+        evictCategorie(savedCategorie.getId());
+        return savedCategorie;
+    }
+
+    // Méthode pour supprimer une catégorie par son ID : masquée aussitôt, produits purgés en arrière-plan
+    public Optional<PurgeSummary> deleteCategorie(Long id) {
+        Optional<PurgeSummary> purge = purgeService.supprimerCategorie(id);
+        evictCategorie(id);
+        return purge;
     }
 
-    // Méthode pour supprimer une catégorie par son ID
-    public void deleteCategorie(Long id) {
-        categorieRepository.deleteById(id);
+    // Appelée après la validation de l'écriture : retire l'entrée de la catégorie et la liste en cache
+    private void evictCategorie(Long id) {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Categorie.class, id);
+        cache.evictQueryRegion(CategorieRepository.CATEGORIES_QUERY_REGION);
     }
 }
@@ -0,0 +1,173 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.model.Commande;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Commandes asynchrones (mode « accept-fast ») : {@link #soumettre} enregistre la commande et sa
+ * ligne d'outbox puis rend la main ; un pool borné draine l'outbox par lots.
+ * <p>
+ * Deux niveaux de contre-pression : le relevé ne prend pas plus de lignes que la file du pool ne
+ * peut en recevoir, et {@link #soumettre} refuse les commandes quand l'outbox dépasse
+ * {@code eshop.commande.outbox.max-backlog}. Le relevé et le recomptage passent par JDBC : ils ne
+ * coûtent qu'une requête sur la clé primaire tant que l'outbox est vide.
+ * <p>
+ * Une ligne dont le traitement échoue (base indisponible, conflits transitoires épuisés) n'est
+ * reprise qu'après un délai qui double à chaque échec ({@code eshop.commande.outbox.retry-delay-ms}) ;
+ * au bout de {@code eshop.commande.outbox.max-echecs} échecs la commande est refusée, pour qu'une
+ * ligne en échec permanent ne soit pas relevée indéfiniment.
+ */
+@Component
+public class CommandeOutboxWorker {
+
+    private static final String RELEVE =
+            "select id from commande_outbox where prochain_essai is null or prochain_essai <= ? order by id limit ?";
+    private static final String TENTATIVES = "select tentatives from commande_outbox where id = ?";
+    // Conditionné au nombre lu : deux échecs concurrents sur la même ligne ne comptent qu'une fois
+    private static final String ECHEC =
+            "update commande_outbox set tentatives = ?, prochain_essai = ? where id = ? and tentatives = ?";
+    private static final String COMPTAGE = "select count(*) from commande_outbox";
+    // Délai maximal entre deux essais : retry-delay-ms * 2^10
+    private static final int MAX_DOUBLEMENTS = 10;
+
+    private final CommandeService commandeService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolExecutor executor;
+    private final long maxBacklog;
+    private final int maxEchecs;
+    private final long retryDelayMs;
+    // Lignes soumises au pool et pas encore traitées : un relevé ne les soumet pas deux fois
+    private final Set<Long> enCours = ConcurrentHashMap.newKeySet();
+    private final AtomicLong backlog = new AtomicLong();
+
+    @Autowired
+    public CommandeOutboxWorker(CommandeService commandeService, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                @Value("${eshop.commande.outbox.threads:4}") int threads,
+                                @Value("${eshop.commande.outbox.queue-capacity:200}") int queueCapacity,
+                                @Value("${eshop.commande.outbox.max-backlog:10000}") long maxBacklog,
+                                @Value("${eshop.commande.outbox.max-echecs:5}") int maxEchecs,
+                                @Value("${eshop.commande.outbox.retry-delay-ms:1000}") long retryDelayMs) {
+        this.commandeService = commandeService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxBacklog = maxBacklog;
+        this.maxEchecs = maxEchecs;
+        this.retryDelayMs = retryDelayMs;
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "commande-outbox-" + numero.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("eshop.commande.outbox.backlog", backlog, AtomicLong::get)
+                .description("Commandes acceptées en attente de traitement")
+                .register(meterRegistry);
+        Gauge.builder("eshop.commande.outbox.queue", executor, pool -> pool.getQueue().size())
+                .description("Lignes d'outbox dans la file du pool de traitement")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Accepte la commande pour un traitement asynchrone.
+     *
+     * @throws FileCommandesPleineException si l'outbox est pleine (à traduire en 503)
+     * @throws IllegalArgumentException si une ligne référence un produit inconnu ou une quantité invalide
+     */
+    public Commande soumettre(Commande commande) {
+        long enAttente = backlog.get();
+        if (enAttente >= maxBacklog) {
+            throw new FileCommandesPleineException(enAttente);
+        }
+        Commande acceptee = commandeService.accepterCommande(commande);
+        backlog.incrementAndGet();
+        return acceptee;
+    }
+
+    // Relève autant de lignes que la file du pool peut en recevoir, les plus anciennes d'abord,
+    // sauf celles dont le prochain essai n'est pas encore dû
+    @Scheduled(fixedDelayString = "${eshop.commande.outbox.poll-interval-ms:100}")
+    public void drainer() {
+        int places = executor.getQueue().remainingCapacity();
+        if (places == 0) {
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(RELEVE, Long.class, LocalDateTime.now(), places + enCours.size());
+        for (Long id : ids) {
+            if (places == 0) {
+                break;
+            }
+            if (!enCours.add(id)) {
+                continue;
+            }
+            try {
+                executor.execute(() -> traiter(id));
+                places--;
+            } catch (RejectedExecutionException e) {
+                enCours.remove(id);
+                break;
+            }
+        }
+    }
+
+    // Recale le compteur sur la table : commandes acceptées par d'autres instances ou avant un redémarrage
+    @Scheduled(fixedDelayString = "${eshop.commande.outbox.resync-interval-ms:30000}")
+    public void recompter() {
+        Long total = jdbcTemplate.queryForObject(COMPTAGE, Long.class);
+        backlog.set(total != null ? total : 0);
+    }
+
+    public long getBacklog() {
+        return backlog.get();
+    }
+
+    private void traiter(Long id) {
+        try {
+            if (commandeService.traiterCommandeEnAttente(id)) {
+                backlog.updateAndGet(valeur -> Math.max(0, valeur - 1));
+            }
+        } catch (RuntimeException e) {
+            echec(id);
+        } finally {
+            enCours.remove(id);
+        }
+    }
+
+    // Compte l'échec et diffère le prochain essai, ou refuse la commande au-delà de max-echecs
+    void echec(Long id) {
+        List<Integer> lues = jdbcTemplate.queryForList(TENTATIVES, Integer.class, id);
+        if (lues.isEmpty()) {
+            return;
+        }
+        int tentatives = lues.get(0) + 1;
+        if (tentatives >= maxEchecs) {
+            if (commandeService.rejeterCommandeEnAttente(id)) {
+                backlog.updateAndGet(valeur -> Math.max(0, valeur - 1));
+            }
+            return;
+        }
+        long delai = retryDelayMs << Math.min(tentatives - 1, MAX_DOUBLEMENTS);
+        jdbcTemplate.update(ECHEC, tentatives, LocalDateTime.now().plusNanos(delai * 1_000_000), id, tentatives - 1);
+    }
+
+    @PreDestroy
+    public void arreter() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
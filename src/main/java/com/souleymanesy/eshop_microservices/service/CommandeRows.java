@@ -0,0 +1,67 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.dto.CommandeLigneRow;
+import com.souleymanesy.eshop_microservices.dto.CommandeSummary;
+import com.souleymanesy.eshop_microservices.dto.LigneCommandeSummary;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Regroupe les lignes de la jointure commande / ligne_commande en une {@link CommandeSummary}
+ * par commande. Les lignes d'une même commande doivent se suivre (requête triée par commande).
+ */
+final class CommandeRows {
+
+    private CommandeRows() {
+    }
+
+    static List<CommandeSummary> group(List<CommandeLigneRow> rows) {
+        List<CommandeSummary> commandes = new ArrayList<>();
+        group(rows.iterator()).forEachRemaining(commandes::add);
+        return commandes;
+    }
+
+    // Regroupement au fil de l'eau : une seule commande en mémoire à la fois (exports)
+    static Stream<CommandeSummary> group(Stream<CommandeLigneRow> rows) {
+        Iterator<CommandeSummary> commandes = group(rows.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(commandes, Spliterator.ORDERED), false)
+                .onClose(rows::close);
+    }
+
+    private static Iterator<CommandeSummary> group(Iterator<CommandeLigneRow> rows) {
+        return new Iterator<>() {
+
+            private CommandeLigneRow next = rows.hasNext() ? rows.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public CommandeSummary next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                CommandeLigneRow first = next;
+                List<LigneCommandeSummary> lignes = new ArrayList<>();
+                while (next != null && next.commandeId().equals(first.commandeId())) {
+                    if (next.ligneId() != null) {
+                        lignes.add(new LigneCommandeSummary(next.ligneId(), next.produitId(),
+                                next.quantite(), next.prixUnitaire()));
+                    }
+                    next = rows.hasNext() ? rows.next() : null;
+                }
+                return new CommandeSummary(first.commandeId(), first.dateCommande(), first.montantTotal(),
+                        first.statut(), first.userId(), lignes);
+            }
+        };
+    }
+}
@@ -1,32 +1,278 @@
 package com.souleymanesy.eshop_microservices.service;
 
+import com.souleymanesy.eshop_microservices.config.ReadYourWrites;
+import com.souleymanesy.eshop_microservices.dto.CommandeSummary;
 import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.CommandeOutbox;
+import com.souleymanesy.eshop_microservices.model.LigneCommande;
+import com.souleymanesy.eshop_microservices.repository.CommandeOutboxRepository;
 import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "eshop.service", histogram = true)
 public class CommandeService {
 
+    // Statuts d'une commande passée en mode asynchrone
+    public static final String STATUT_EN_ATTENTE = "EN_ATTENTE";
+    public static final String STATUT_CONFIRMEE = "CONFIRMEE";
+    public static final String STATUT_REJETEE = "REJETEE";
+
     private final CommandeRepository commandeRepository;
+    private final CommandeOutboxRepository commandeOutboxRepository;
+    private final ProduitRepository produitRepository;
+    private final UserRepository userRepository;
+    private final NdjsonExporter ndjsonExporter;
+    private final ReadYourWrites readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxTentatives;
 
     @Autowired
-    public CommandeService(CommandeRepository commandeRepository) {
+    public CommandeService(CommandeRepository commandeRepository, CommandeOutboxRepository commandeOutboxRepository,
+                           ProduitRepository produitRepository,
+                           UserRepository userRepository, NdjsonExporter ndjsonExporter, ReadYourWrites readYourWrites,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${eshop.commande.max-tentatives:3}") int maxTentatives) {
         this.commandeRepository = commandeRepository;
+        this.commandeOutboxRepository = commandeOutboxRepository;
+        this.produitRepository = produitRepository;
+        this.userRepository = userRepository;
+        this.ndjsonExporter = ndjsonExporter;
+        this.readYourWrites = readYourWrites;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxTentatives = maxTentatives;
     }
 
     public List<Commande> getAllCommandes() {
-        return commandeRepository.findAll();
+        return commandeRepository.findAllWithUser();
+    }
+
+    @Transactional(readOnly = true)
+    public List<CommandeSummary> getAllCommandeSummaries() {
+        return CommandeRows.group(commandeRepository.findAllSummaryRows());
+    }
+
+    /**
+     * Commandes d'un utilisateur, de la plus récente à la plus ancienne, après la commande
+     * ({@code afterDate}, {@code afterId}) reçue en dernier (les deux nuls pour la première page).
+     * Les lignes de la page sont lues en une seconde requête.
+     *
+     * @return vide si l'utilisateur n'existe pas
+     */
+    @Transactional(readOnly = true)
+    public Optional<Window<CommandeSummary>> getCommandesByUser(Long userId, LocalDateTime afterDate, Long afterId,
+                                                                int size) {
+        if (!userRepository.existsById(userId)) {
+            return Optional.empty();
+        }
+        Limit limit = Limit.of(size + 1);
+        List<CommandeSummary> page = afterDate != null && afterId != null
+                ? commandeRepository.findSummariesByUserAfter(userId, afterDate, afterId, limit)
+                : commandeRepository.findSummariesByUser(userId, limit);
+        boolean hasNext = page.size() > size;
+        List<CommandeSummary> content = page.subList(0, Math.min(size, page.size()));
+        return Optional.of(Window.from(withLignes(content), index -> ScrollPosition.forward(
+                Map.of("dateCommande", content.get(index).dateCommande(), "id", content.get(index).id())), hasNext));
+    }
+
+    private List<CommandeSummary> withLignes(List<CommandeSummary> commandes) {
+        if (commandes.isEmpty()) {
+            return commandes;
+        }
+        Map<Long, CommandeSummary> avecLignes = CommandeRows.group(commandeRepository.findSummaryRowsByIds(
+                        commandes.stream().map(CommandeSummary::id).toList())).stream()
+                .collect(Collectors.toMap(CommandeSummary::id, Function.identity()));
+        return commandes.stream().map(commande -> avecLignes.get(commande.id())).toList();
+    }
+
+    // Export NDJSON de toute la table, ligne par ligne
+    @Transactional(readOnly = true)
+    public long exportCommandes(OutputStream out) throws IOException {
+        try (Stream<CommandeSummary> commandes = CommandeRows.group(commandeRepository.streamSummaryRows())) {
+            return ndjsonExporter.export(commandes, out);
+        }
     }
 
     public Optional<Commande> getCommandeById(Long id) {
         return commandeRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<CommandeSummary> getCommandeSummaryById(Long id) {
+        return CommandeRows.group(commandeRepository.findSummaryRowsById(id)).stream().findFirst();
+    }
+
     public Commande saveCommande(Commande commande) {
+        Commande saved = commandeRepository.save(commande);
+        readYourWrites.markWrite();
+        return saved;
+    }
+
+    /**
+     * Enregistre une commande avec ses lignes en réservant le stock de chaque produit, le tout
+     * dans une seule transaction : si une ligne ne peut pas être servie, rien n'est réservé.
+     * <p>
+     * Les conflits transitoires (verrou mortel, délai de verrou dépassé, version périmée) sont
+     * rejoués au plus {@code eshop.commande.max-tentatives} fois.
+     *
+     * @throws StockInsuffisantException si le stock d'un produit ne suffit pas
+     * @throws IllegalArgumentException si une ligne référence un produit inconnu ou une quantité invalide
+     */
+    public Commande passerCommande(Commande commande) {
+        for (int tentative = 1; ; tentative++) {
+            try {
+                Commande saved = transactionTemplate.execute(status -> reserverEtEnregistrer(commande));
+                readYourWrites.markWrite();
+                return saved;
+            } catch (TransientDataAccessException e) {
+                if (tentative >= maxTentatives) {
+                    throw e;
+                }
+                // Les identifiants attribués par la tentative annulée ne correspondent à aucune ligne
+                commande.setId(null);
+                commande.getLignes().forEach(ligne -> ligne.setId(null));
+            }
+        }
+    }
+
+    /**
+     * Accepte une commande sans la traiter : elle est enregistrée avec ses lignes au statut
+     * {@value #STATUT_EN_ATTENTE}, avec une ligne d'outbox, dans une seule transaction. La
+     * réservation du stock est faite ensuite par {@link #traiterCommandeEnAttente}.
+     *
+     * @throws IllegalArgumentException si une ligne référence un produit inconnu ou une quantité invalide
+     */
+    public Commande accepterCommande(Commande commande) {
+        for (LigneCommande ligne : commande.getLignes()) {
+            if (ligne.getProduitId() == null || ligne.getQuantite() <= 0) {
+                throw new IllegalArgumentException("Ligne de commande invalide : " + ligne.getProduitId());
+            }
+        }
+        try {
+            Commande saved = transactionTemplate.execute(status -> {
+                commande.setStatut(STATUT_EN_ATTENTE);
+                for (LigneCommande ligne : commande.getLignes()) {
+                    // Référence sans SELECT : un produit inconnu est rejeté par la clé étrangère
+                    ligne.setCommande(commande);
+                    ligne.setProduit(produitRepository.getReferenceById(ligne.getProduitId()));
+                }
+                Commande enregistree = commandeRepository.save(commande);
+                commandeOutboxRepository.save(new CommandeOutbox(null, enregistree.getId(), LocalDateTime.now(), 0, null));
+                return enregistree;
+            });
+            readYourWrites.markWrite();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Produit inconnu dans la commande", e);
+        }
+    }
+
+    /**
+     * Traite une commande de l'outbox : réserve le stock et passe la commande à
+     * {@value #STATUT_CONFIRMEE}, ou à {@value #STATUT_REJETEE} si une ligne ne peut pas être
+     * servie. La ligne d'outbox est supprimée dans la même transaction que le changement de statut.
+     *
+     * @return false si la ligne n'existe plus ou si une autre transaction la traite déjà
+     */
+    public boolean traiterCommandeEnAttente(Long outboxId) {
+        for (int tentative = 1; ; tentative++) {
+            try {
+                return Boolean.TRUE.equals(transactionTemplate.execute(status -> confirmer(outboxId)));
+            } catch (StockInsuffisantException | IllegalArgumentException e) {
+                // Réservations partielles annulées avec la transaction, la commande est refusée à part
+                return rejeterCommandeEnAttente(outboxId);
+            } catch (TransientDataAccessException e) {
+                if (tentative >= maxTentatives) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Refuse une commande de l'outbox sans la traiter : statut {@value #STATUT_REJETEE} et
+     * suppression de la ligne d'outbox dans la même transaction.
+     *
+     * @return false si la ligne n'existe plus ou si une autre transaction la traite déjà
+     */
+    public boolean rejeterCommandeEnAttente(Long outboxId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> rejeter(outboxId)));
+    }
+
+    private boolean confirmer(Long outboxId) {
+        Optional<CommandeOutbox> outbox = commandeOutboxRepository.findAndLockById(outboxId);
+        if (outbox.isEmpty()) {
+            return false;
+        }
+        commandeRepository.findById(outbox.get().getCommandeId()).ifPresent(commande -> {
+            reserverEtEnregistrer(commande);
+            commande.setStatut(STATUT_CONFIRMEE);
+        });
+        commandeOutboxRepository.delete(outbox.get());
+        return true;
+    }
+
+    private boolean rejeter(Long outboxId) {
+        Optional<CommandeOutbox> outbox = commandeOutboxRepository.findAndLockById(outboxId);
+        if (outbox.isEmpty()) {
+            return false;
+        }
+        commandeRepository.findById(outbox.get().getCommandeId())
+                .ifPresent(commande -> commande.setStatut(STATUT_REJETEE));
+        commandeOutboxRepository.delete(outbox.get());
+        return true;
+    }
+
+    private Commande reserverEtEnregistrer(Commande commande) {
+        // Ordre stable des produits : deux commandes concurrentes verrouillent les lignes dans le même ordre
+        List<LigneCommande> lignes = commande.getLignes().stream()
+                .sorted(Comparator.comparing(LigneCommande::getProduitId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+        double montantTotal = 0;
+        for (LigneCommande ligne : lignes) {
+            if (ligne.getProduitId() == null || ligne.getQuantite() <= 0) {
+                throw new IllegalArgumentException("Ligne de commande invalide : " + ligne.getProduitId());
+            }
+            Long produitId = ligne.getProduitId();
+            if (produitRepository.reserverStock(produitId, ligne.getQuantite()) == 0) {
+                if (!produitRepository.existsById(produitId)) {
+                    throw new IllegalArgumentException("Produit inconnu : " + produitId);
+                }
+                throw new StockInsuffisantException(produitId, ligne.getQuantite());
+            }
+            // Prix lu sur la ligne réservée (verrouillée jusqu'au commit), sans charger l'entité : aucun
+            // Produit au stock et à la version d'avant la réservation dans le contexte de persistance
+            double prix = produitRepository.findPrixById(produitId);
+            ligne.setCommande(commande);
+            ligne.setProduit(produitRepository.getReferenceById(produitId));
+            ligne.setPrixUnitaire(prix);
+            montantTotal += prix * ligne.getQuantite();
+        }
+        commande.setMontantTotal(montantTotal);
         return commandeRepository.save(commande);
     }
 
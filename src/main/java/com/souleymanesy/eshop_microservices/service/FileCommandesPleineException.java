@@ -0,0 +1,16 @@
+package com.souleymanesy.eshop_microservices.service;
+
+// Levée quand l'outbox des commandes asynchrones a atteint eshop.commande.outbox.max-backlog
+public class FileCommandesPleineException extends RuntimeException {
+
+    private final long backlog;
+
+    public FileCommandesPleineException(long backlog) {
+        super("File des commandes en attente pleine (" + backlog + " commandes)");
+        this.backlog = backlog;
+    }
+
+    public long getBacklog() {
+        return backlog;
+    }
+}
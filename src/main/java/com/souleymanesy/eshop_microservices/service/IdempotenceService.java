@@ -0,0 +1,125 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.model.IdempotenceCle;
+import com.souleymanesy.eshop_microservices.repository.IdempotenceCleRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Table des clés Idempotency-Key, partagée par toutes les instances.
+ * <p>
+ * {@link #reserver} insère la clé avant l'exécution de la requête : la clé primaire garantit
+ * qu'une seule instance l'exécute. La réponse est enregistrée ensuite par {@link #enregistrer},
+ * ou la clé libérée si la réponse ne doit pas être rejouée. Une réservation restée sans réponse
+ * au-delà de {@code eshop.idempotence.claim-timeout-ms} (instance arrêtée en cours de route) peut
+ * être reprise, comme une clé expirée.
+ * <p>
+ * La réservation a pour jeton sa {@code date_creation} : {@link #enregistrer} et {@link #liberer}
+ * ne touchent la ligne que si elle porte encore l'empreinte et la date de leur réservation. Une
+ * exécution dont la clé a été reprise entre-temps ne peut ni écraser la réponse de la reprise, ni
+ * libérer sa réservation.
+ */
+@Service
+@Timed(value = "eshop.service", histogram = true)
+public class IdempotenceService {
+
+    private static final String RESERVER = "insert into idempotence_cle (cle, empreinte, date_creation, expire_le) "
+            + "values (?, ?, ?, ?)";
+    private static final String REPRENDRE = "update idempotence_cle set empreinte = ?, statut = null, type_contenu = null, "
+            + "location = null, corps = null, date_creation = ?, expire_le = ? "
+            + "where cle = ? and (expire_le < ? or (statut is null and date_creation < ?))";
+    private static final String ENREGISTRER = "update idempotence_cle set statut = ?, type_contenu = ?, location = ?, corps = ? "
+            + "where cle = ? and empreinte = ? and date_creation = ? and statut is null";
+    private static final String LIBERER = "delete from idempotence_cle "
+            + "where cle = ? and empreinte = ? and date_creation = ? and statut is null";
+    private static final String PURGER = "delete from idempotence_cle where expire_le < ?";
+
+    /**
+     * Réponse rejouée pour une clé, avec l'empreinte de la requête qui l'a produite.
+     */
+    public record Reponse(String empreinte, int statut, String typeContenu, String location, byte[] corps) {
+    }
+
+    /**
+     * Issue de {@link #reserver} : clé réservée par l'appelant ({@code dateCreation}, jeton à rendre
+     * à {@link #enregistrer} ou {@link #liberer}), réponse déjà enregistrée, ou requête en cours
+     * sur une autre instance.
+     */
+    public record Reservation(LocalDateTime dateCreation, Reponse reponse) {
+
+        static final Reservation EN_COURS = new Reservation(null, null);
+
+        public boolean reservee() {
+            return dateCreation != null;
+        }
+    }
+
+    private final IdempotenceCleRepository idempotenceCleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration claimTimeout;
+
+    @Autowired
+    public IdempotenceService(IdempotenceCleRepository idempotenceCleRepository, JdbcTemplate jdbcTemplate,
+                              @Value("${eshop.idempotence.ttl-hours:24}") long ttlHours,
+                              @Value("${eshop.idempotence.claim-timeout-ms:300000}") long claimTimeoutMs) {
+        this.idempotenceCleRepository = idempotenceCleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public Reservation reserver(String cle, String empreinte) {
+        // Précision de la colonne date_creation : le jeton doit se relire à l'identique
+        LocalDateTime maintenant = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        try {
+            jdbcTemplate.update(RESERVER, cle, empreinte, maintenant, maintenant.plus(ttl));
+            return new Reservation(maintenant, null);
+        } catch (DuplicateKeyException e) {
+            // Clé connue : rejouée si sa réponse est enregistrée, reprise si elle a expiré ou été abandonnée
+        }
+        if (jdbcTemplate.update(REPRENDRE, empreinte, maintenant, maintenant.plus(ttl), cle, maintenant,
+                maintenant.minus(claimTimeout)) == 1) {
+            return new Reservation(maintenant, null);
+        }
+        return idempotenceCleRepository.findById(cle)
+                .filter(ligne -> ligne.getStatut() != null)
+                .map(ligne -> new Reservation(null, reponse(ligne)))
+                .orElse(Reservation.EN_COURS);
+    }
+
+    // Faux si la réservation a été reprise entre-temps : la réponse n'est pas enregistrée
+    public boolean enregistrer(String cle, LocalDateTime dateCreation, Reponse reponse) {
+        return jdbcTemplate.update(ENREGISTRER, reponse.statut(), reponse.typeContenu(), reponse.location(),
+                new String(reponse.corps(), StandardCharsets.UTF_8), cle, reponse.empreinte(), dateCreation) == 1;
+    }
+
+    // Réponse non rejouable (erreur serveur, délestage) : le client pourra réessayer avec la même clé
+    public void liberer(String cle, String empreinte, LocalDateTime dateCreation) {
+        jdbcTemplate.update(LIBERER, cle, empreinte, dateCreation);
+    }
+
+    @Scheduled(fixedDelayString = "${eshop.idempotence.purge-interval-ms:3600000}")
+    public void purgerExpirees() {
+        jdbcTemplate.update(PURGER, LocalDateTime.now());
+    }
+
+    private static Reponse reponse(IdempotenceCle ligne) {
+        return new Reponse(ligne.getEmpreinte(), ligne.getStatut(), ligne.getTypeContenu(), ligne.getLocation(),
+                ligne.getCorps() != null ? ligne.getCorps().getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+}
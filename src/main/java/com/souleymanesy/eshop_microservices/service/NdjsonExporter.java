@@ -0,0 +1,55 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Écrit un flux de projections au format NDJSON (un objet JSON par ligne).
+ * <p>
+ * Les lignes ne sont pas des entités gérées : le contexte de persistance ne grossit pas avec
+ * le nombre de lignes, et la mémoire utilisée reste constante pendant l'export.
+ * Doit être appelé dans la transaction qui a ouvert le {@link Stream}.
+ */
+@Component
+public class NdjsonExporter {
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public NdjsonExporter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public long export(Stream<?> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+            if (count > 0) {
+                out.write('\n');
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,82 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.model.Produit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reconstruit l'index plein texte des produits au démarrage, avant que l'application ne soit
+ * déclarée prête : l'index est vidé puis rempli depuis la table produit.
+ * <p>
+ * Par défaut seulement si l'index est vide alors que la table ne l'est pas (premier démarrage,
+ * répertoire d'index perdu, index en mémoire) : un redémarrage ordinaire ne relit pas toute la
+ * table. {@code eshop.search.reindex-on-startup=true} force la reconstruction, le temps d'un
+ * déploiement, après un changement du mapping ou de l'analyse de {@link Produit}, ou après des
+ * écritures hors JPA (scripts SQL, restauration de sauvegarde).
+ * <p>
+ * Ensuite l'index est tenu à jour à chaque écriture JPA ({@code saveProduit}, {@code deleteProduit},
+ * import en masse) faite par cette instance. Avec plusieurs instances (autoscaling), chacune a son
+ * propre index Lucene, qui ne voit pas les écritures des autres : les résultats de recherche
+ * divergent d'une instance à l'autre. Il faut alors un backend partagé (Elasticsearch, OpenSearch)
+ * ou la coordination {@code outbox-polling} de Hibernate Search.
+ */
+@Component
+public class ProduitIndexInitializer implements ApplicationRunner {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean toujours;
+    private final boolean siVide;
+    private final int threads;
+    private final int batchSize;
+
+    @Autowired
+    public ProduitIndexInitializer(EntityManagerFactory entityManagerFactory,
+                                   @Value("${eshop.search.reindex-on-startup:false}") boolean toujours,
+                                   @Value("${eshop.search.reindex-if-empty:true}") boolean siVide,
+                                   @Value("${eshop.search.reindex-threads:2}") int threads,
+                                   @Value("${eshop.search.reindex-batch-size:500}") int batchSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.toujours = toujours;
+        this.siVide = siVide;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (toujours || (siVide && indexIncomplet())) {
+            reconstruire();
+        }
+    }
+
+    public void reconstruire() throws InterruptedException {
+        Search.mapping(entityManagerFactory).scope(Produit.class).massIndexer()
+                .threadsToLoadObjects(threads)
+                .batchSizeToLoadObjects(batchSize)
+                // Lecture de toute la table : inutile de remplir le cache de second niveau
+                .cacheMode(CacheMode.IGNORE)
+                // Un seul segment à la fin : les requêtes n'ont pas à parcourir des dizaines de petits segments
+                .mergeSegmentsOnFinish(true)
+                .startAndWait();
+    }
+
+    // Index vide et table non vide : deux lectures bornées au lieu de la reconstruction complète
+    private boolean indexIncomplet() {
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            long indexes = Search.session(entityManager).search(Produit.class)
+                    .where(f -> f.matchAll())
+                    .fetchTotalHitCount();
+            return indexes == 0 && !entityManager.createQuery("select p.id from Produit p", Long.class)
+                    .setMaxResults(1)
+                    .getResultList()
+                    .isEmpty();
+        }
+    }
+}
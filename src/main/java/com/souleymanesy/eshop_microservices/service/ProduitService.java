@@ -1,35 +1,260 @@
 package com.souleymanesy.eshop_microservices.service;
 
+import com.souleymanesy.eshop_microservices.dto.ProduitBatchResult;
+import com.souleymanesy.eshop_microservices.dto.ProduitFiltre;
+import com.souleymanesy.eshop_microservices.dto.ProduitSummary;
+import com.souleymanesy.eshop_microservices.model.Categorie;
 import com.souleymanesy.eshop_microservices.model.Produit;
 import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitSpecifications;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
+@Timed(value = "eshop.service", histogram = true)
 public class ProduitService {
 
+    private static final String MESSAGE_ECHEC = "Erreur de base de données, lot annulé";
+
     private final ProduitRepository produitRepository;
+    private final CategorieService categorieService;
+    private final NdjsonExporter ndjsonExporter;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int importChunkSize;
 
     @Autowired
-    public ProduitService(ProduitRepository produitRepository) {
+    public ProduitService(ProduitRepository produitRepository, CategorieService categorieService,
+                          NdjsonExporter ndjsonExporter, EntityManager entityManager,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${eshop.produit.import-chunk-size:500}") int importChunkSize) {
         this.produitRepository = produitRepository;
+        this.categorieService = categorieService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importChunkSize = importChunkSize;
     }
 
     public List<Produit> getAllProduits() {
-        return produitRepository.findAll();
+        return produitRepository.findAllWithCategorie();
+    }
+
+    /**
+     * Page de produits triée par id, lue par curseur (keyset) plutôt que par OFFSET.
+     * <p>
+     * {@code after} renvoie les produits d'id strictement supérieur, {@code before} ceux d'id
+     * strictement inférieur (toujours restitués dans l'ordre croissant). Les critères de
+     * {@code filtre} sont ajoutés à la même requête ; avec {@code before}, une requête d'existence
+     * ({@code limit 1}) dit s'il reste des produits après la page. Aucune requête COUNT n'est
+     * exécutée : le résultat est une {@link Slice}, sans total, dont seuls {@link Slice#hasNext()} et
+     * {@link Slice#hasPrevious()} sont significatifs (le numéro de page ne sert qu'à porter le second).
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProduitSummary> getProduits(ProduitFiltre filtre, Long after, Long before, int size) {
+        Specification<Produit> spec = ProduitSpecifications.filtre(filtre);
+        List<ProduitSummary> content;
+        boolean hasNext;
+        boolean hasPrevious;
+        if (before != null) {
+            content = new ArrayList<>(findKeyset(spec.and(ProduitSpecifications.idAvant(before)),
+                    Sort.Direction.DESC, size));
+            hasPrevious = trim(content, size);
+            Collections.reverse(content);
+            // Aucune ligne du filtre entre la page et le curseur : la suite commence à before
+            hasNext = produitRepository.exists(spec.and(ProduitSpecifications.idApres(before - 1)));
+        } else {
+            Specification<Produit> suite = after != null ? spec.and(ProduitSpecifications.idApres(after)) : spec;
+            content = new ArrayList<>(findKeyset(suite, Sort.Direction.ASC, size));
+            hasNext = trim(content, size);
+            hasPrevious = after != null;
+        }
+        return new SliceImpl<>(content, PageRequest.of(hasPrevious ? 1 : 0, size, Sort.by("id")), hasNext);
+    }
+
+    // Une ligne de plus que la page pour savoir s'il en reste
+    private List<ProduitSummary> findKeyset(Specification<Produit> spec, Sort.Direction direction, int size) {
+        return produitRepository.findSummaries(spec, Sort.by(direction, "id"), size + 1);
+    }
+
+    private static boolean trim(List<ProduitSummary> content, int size) {
+        if (content.size() <= size) {
+            return false;
+        }
+        content.subList(size, content.size()).clear();
+        return true;
+    }
+
+    /**
+     * Recherche plein texte (voir {@link ProduitRepository#rechercherIds}) : l'index donne les ids
+     * de la page dans l'ordre de pertinence, une seule requête SQL par clé primaire les projette,
+     * puis l'ordre de l'index est rétabli. Un produit encore indexé mais absent de la base, ou dont la
+     * catégorie est supprimée, est ignoré.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProduitSummary> rechercherProduits(String texte, int page, int size) {
+        Page<Long> ids = produitRepository.rechercherIds(texte, PageRequest.of(page, size));
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, ProduitSummary> parId = produitRepository
+                .findSummaries(ProduitSpecifications.ids(ids.getContent()).and(ProduitSpecifications.categorieActive()),
+                        Sort.unsorted(), size).stream()
+                .collect(Collectors.toMap(ProduitSummary::id, Function.identity()));
+        List<ProduitSummary> content = ids.stream().map(parId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+
+    // Export NDJSON de toute la table, ligne par ligne
+    @Transactional(readOnly = true)
+    public long exportProduits(OutputStream out) throws IOException {
+        try (Stream<ProduitSummary> produits = produitRepository.streamSummaries()) {
+            return ndjsonExporter.export(produits, out);
+        }
     }
 
     public Optional<Produit> getProduitById(Long id) {
         return produitRepository.findById(id);
     }
 
+    // Lecture seule servie par le cache de second niveau : ni instantané ni vérification au flush
+    @Transactional(readOnly = true)
+    public Optional<ProduitSummary> getProduitSummaryById(Long id) {
+        return produitRepository.findById(id).map(ProduitSummary::of);
+    }
+
     public Produit saveProduit(Produit produit) {
         return produitRepository.save(produit);
     }
 
+    /**
+     * Enregistre un produit modifié avec la version lue par le client ({@code If-Match} implicite du
+     * PUT) : la copie détachée porte cette version, que le merge compare à celle de la base puis
+     * que l'UPDATE ... WHERE version = ? vérifie encore (@Version). Aucune fenêtre entre la
+     * vérification et l'écriture.
+     *
+     * @param version version envoyée par le client, aucune vérification si elle est absente
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException si elle est périmée
+     */
+    @Transactional
+    public Produit mettreAJourProduit(Produit produit, Long version) {
+        if (version != null) {
+            entityManager.detach(produit);
+            produit.setVersion(version);
+        }
+        return produitRepository.save(produit);
+    }
+
+    /**
+     * Import en masse : les catégories référencées sont lues en une seule requête, puis les
+     * produits sont enregistrés par lots de {@code eshop.produit.import-chunk-size}, chacun dans
+     * sa propre transaction (un lot en échec n'annule pas les précédents). Dans un lot, les
+     * INSERT et UPDATE partent en batch JDBC ({@code hibernate.jdbc.batch_size}).
+     * <p>
+     * Une ligne avec un id met à jour le produit existant, une ligne sans id le crée.
+     *
+     * @return le résultat de chaque ligne, dans l'ordre de la requête
+     */
+    public List<ProduitBatchResult> saveProduitsBatch(List<Produit> produits) {
+        Set<Long> categorieIds = produits.stream()
+                .map(ProduitService::categorieId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Categorie> categories = categorieService.getCategoriesByIds(categorieIds);
+
+        ProduitBatchResult[] results = new ProduitBatchResult[produits.size()];
+        for (int debut = 0; debut < produits.size(); debut += importChunkSize) {
+            int fin = Math.min(debut + importChunkSize, produits.size());
+            List<Produit> lot = produits.subList(debut, fin);
+            int offset = debut;
+            try {
+                transactionTemplate.executeWithoutResult(status -> enregistrerLot(lot, offset, categories, results));
+            } catch (DataAccessException e) {
+                // Lot annulé : ses lignes valides n'ont pas été enregistrées. La cause (SQL, contraintes,
+                // noms de tables) reste dans les journaux du serveur, le client n'en reçoit que l'existence
+                log.warn("Import de produits : lot [{}, {}) annulé", debut, fin, e);
+                for (int i = debut; i < fin; i++) {
+                    if (results[i] == null || !ProduitBatchResult.REJETE.equals(results[i].statut())) {
+                        results[i] = new ProduitBatchResult(i, null, ProduitBatchResult.ECHEC, MESSAGE_ECHEC);
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void enregistrerLot(List<Produit> lot, int offset, Map<Long, Categorie> categories, ProduitBatchResult[] results) {
+        List<Long> ids = lot.stream().map(Produit::getId).filter(Objects::nonNull).toList();
+        Map<Long, Produit> existants = produitRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Produit::getId, Function.identity()));
+
+        for (int i = 0; i < lot.size(); i++) {
+            int index = offset + i;
+            Produit produit = lot.get(i);
+            Categorie categorie = categories.get(categorieId(produit));
+            if (produit.getNom() == null || categorie == null) {
+                results[index] = new ProduitBatchResult(index, produit.getId(), ProduitBatchResult.REJETE,
+                        "nom et catégorie existante obligatoires");
+            } else if (produit.getId() == null) {
+                produit.setVersion(null);
+                produit.setCategorie(categorie);
+                Produit savedProduit = produitRepository.save(produit);
+                results[index] = new ProduitBatchResult(index, savedProduit.getId(), ProduitBatchResult.CREE, null);
+            } else {
+                Produit existant = existants.get(produit.getId());
+                if (existant == null) {
+                    results[index] = new ProduitBatchResult(index, produit.getId(), ProduitBatchResult.REJETE, "produit inconnu");
+                } else if (produit.getVersion() != null && !produit.getVersion().equals(existant.getVersion())) {
+                    results[index] = new ProduitBatchResult(index, produit.getId(), ProduitBatchResult.REJETE, "version périmée");
+                } else {
+                    existant.setNom(produit.getNom());
+                    existant.setDescription(produit.getDescription());
+                    existant.setPrix(produit.getPrix());
+                    existant.setQuantiteStock(produit.getQuantiteStock());
+                    existant.setCategorie(categorie);
+                    results[index] = new ProduitBatchResult(index, existant.getId(), ProduitBatchResult.MIS_A_JOUR, null);
+                }
+            }
+        }
+        // Envoie les batchs du lot puis libère le contexte de persistance avant le lot suivant
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static Long categorieId(Produit produit) {
+        return produit.getCategorie() != null ? produit.getCategorie().getId() : null;
+    }
+
     public void deleteProduit(Long id) {
         produitRepository.deleteById(id);
     }
@@ -0,0 +1,197 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.dto.PurgeSummary;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.Purge;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitSpecifications;
+import com.souleymanesy.eshop_microservices.repository.PurgeRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Suppression des catégories et des utilisateurs en deux temps.
+ * <p>
+ * La demande ne fait que marquer la ligne ({@code supprime_le}, qui la masque de toutes les
+ * lectures) et enregistrer une {@link Purge} : aucune ligne enfant n'est chargée ni verrouillée.
+ * {@link PurgeWorker} supprime ensuite les enfants par tranches de {@code eshop.purge.chunk-size}
+ * ids, une transaction courte par tranche, avec des DELETE JPQL en masse, puis la ligne elle-même.
+ * Le curseur et les compteurs sont enregistrés avec chaque tranche : après un arrêt, la purge
+ * reprend à la tranche suivante.
+ * <p>
+ * En attendant la purge, les produits d'une catégorie supprimée et les commandes d'un utilisateur
+ * supprimé sortent aussi des listes, de la recherche et des exports (condition sur le
+ * {@code supprimeLe} du parent dans {@link ProduitSpecifications} et {@link CommandeRepository}).
+ */
+@Service
+@Timed(value = "eshop.service", histogram = true)
+public class PurgeService {
+
+    public static final String TYPE_CATEGORIE = "CATEGORIE";
+    public static final String TYPE_USER = "USER";
+
+    // Marquage et suppression finale hors JPQL : la restriction supprime_le is null masquerait la ligne
+    private static final String MARQUER_CATEGORIE = "update categorie set supprime_le = ? where id = ? and supprime_le is null";
+    private static final String MARQUER_USER = "update app_user set supprime_le = ? where id = ? and supprime_le is null";
+    private static final String SUPPRIMER_CATEGORIE = "delete from categorie where id = ?";
+    private static final String SUPPRIMER_USER = "delete from app_user where id = ?";
+
+    private final PurgeRepository purgeRepository;
+    private final StatsService statsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final int chunkSize;
+
+    @Autowired
+    public PurgeService(PurgeRepository purgeRepository, StatsService statsService, JdbcTemplate jdbcTemplate,
+                        EntityManager entityManager, EntityManagerFactory entityManagerFactory,
+                        @Value("${eshop.purge.chunk-size:500}") int chunkSize) {
+        this.purgeRepository = purgeRepository;
+        this.statsService = statsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkSize = chunkSize;
+    }
+
+    // Marque la catégorie supprimée et planifie la purge de ses produits ; vide si elle n'existe pas
+    @Transactional
+    public Optional<PurgeSummary> supprimerCategorie(Long id) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (jdbcTemplate.update(MARQUER_CATEGORIE, maintenant, id) == 0) {
+            return Optional.empty();
+        }
+        long produits = entityManager.createQuery("select count(p) from Produit p where p.categorie.id = :id", Long.class)
+                .setParameter("id", id)
+                .getSingleResult();
+        return Optional.of(PurgeSummary.of(purgeRepository.save(
+                new Purge(null, TYPE_CATEGORIE, id, produits, 0, 0, maintenant, null))));
+    }
+
+    // Marque l'utilisateur supprimé et planifie la purge de ses commandes ; vide s'il n'existe pas
+    @Transactional
+    public Optional<PurgeSummary> supprimerUser(Long id) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (jdbcTemplate.update(MARQUER_USER, maintenant, id) == 0) {
+            return Optional.empty();
+        }
+        long commandes = entityManager.createQuery("select count(c) from Commande c where c.user.id = :id", Long.class)
+                .setParameter("id", id)
+                .getSingleResult();
+        return Optional.of(PurgeSummary.of(purgeRepository.save(
+                new Purge(null, TYPE_USER, id, commandes, 0, 0, maintenant, null))));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<PurgeSummary> getPurgeById(Long id) {
+        return purgeRepository.findById(id).map(PurgeSummary::of);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PurgeSummary> getPurgesEnCours() {
+        return purgeRepository.findEnCours().stream().map(PurgeSummary::of).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> getPurgeIdsEnCours() {
+        return purgeRepository.findEnCours().stream().map(Purge::getId).toList();
+    }
+
+    /**
+     * Supprime la tranche suivante d'enfants de la purge, ou la ligne cible s'il n'en reste plus.
+     *
+     * @return vrai si la purge est terminée (ou inconnue)
+     */
+    @Transactional
+    public boolean purgerTranche(Long purgeId) {
+        Purge purge = purgeRepository.findForUpdateById(purgeId).orElse(null);
+        if (purge == null || purge.getDateFin() != null) {
+            return true;
+        }
+        List<Long> ids = TYPE_CATEGORIE.equals(purge.getType()) ? tranche("Produit", "categorie", purge)
+                : tranche("Commande", "user", purge);
+        if (ids.isEmpty()) {
+            terminer(purge);
+            return true;
+        }
+        if (TYPE_CATEGORIE.equals(purge.getType())) {
+            supprimerProduits(ids);
+        } else {
+            supprimerCommandes(ids);
+        }
+        purge.setDernierId(ids.get(ids.size() - 1));
+        purge.setEnfantsSupprimes(purge.getEnfantsSupprimes() + ids.size());
+        return false;
+    }
+
+    // Ids suivants dans l'ordre, sur les index (categorie_id, id) et (user_id, ...)
+    private List<Long> tranche(String entite, String parent, Purge purge) {
+        return entityManager.createQuery("select e.id from " + entite + " e where e." + parent + ".id = :cible "
+                        + "and e.id > :dernier order by e.id", Long.class)
+                .setParameter("cible", purge.getCibleId())
+                .setParameter("dernier", purge.getDernierId())
+                .setMaxResults(chunkSize)
+                .getResultList();
+    }
+
+    // Les lignes de commande gardent leur prix, sans référence au produit ; index plein texte purgé au commit
+    private void supprimerProduits(List<Long> ids) {
+        entityManager.createQuery("update LigneCommande l set l.produit = null where l.produit.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createQuery("delete from Produit p where p.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+        ids.forEach(id -> indexingPlan.purge(Produit.class, id, null));
+    }
+
+    // Agrégats des ventes corrigés à la main : les DELETE en masse ne passent pas par StatsCommandeListener
+    private void supprimerCommandes(List<Long> ids) {
+        statsService.retirer(entityManager.createQuery("select c.dateCommande, c.statut, c.user.id, c.montantTotal "
+                        + "from Commande c where c.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultStream()
+                .map(ligne -> StatsService.Contribution.of((LocalDateTime) ligne[0], (String) ligne[1], (Long) ligne[2],
+                        (Double) ligne[3]))
+                .toList());
+        entityManager.createQuery("delete from LigneCommande l where l.commande.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createQuery("delete from CommandeOutbox o where o.commandeId in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createQuery("delete from Commande c where c.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    private void terminer(Purge purge) {
+        if (TYPE_CATEGORIE.equals(purge.getType())) {
+            jdbcTemplate.update(SUPPRIMER_CATEGORIE, purge.getCibleId());
+            org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            cache.evictEntityData(Categorie.class, purge.getCibleId());
+            cache.evictQueryRegion(CategorieRepository.CATEGORIES_QUERY_REGION);
+        } else {
+            statsService.oublierUser(purge.getCibleId());
+            jdbcTemplate.update(SUPPRIMER_USER, purge.getCibleId());
+        }
+        purge.setDateFin(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,64 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exécute les purges en attente ({@link PurgeService}) sur un thread dédié, une tranche après
+ * l'autre avec une pause de {@code eshop.purge.pause-ms} entre deux : les autres transactions
+ * obtiennent leurs verrous entre les tranches. Le relevé reprend aussi les purges interrompues
+ * par un arrêt de l'application.
+ */
+@Component
+public class PurgeWorker {
+
+    private final PurgeService purgeService;
+    private final long pauseMs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "purge"));
+    // Purges soumises au thread et pas encore finies : un relevé ne les soumet pas deux fois
+    private final Set<Long> enCours = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PurgeWorker(PurgeService purgeService, @Value("${eshop.purge.pause-ms:50}") long pauseMs) {
+        this.purgeService = purgeService;
+        this.pauseMs = pauseMs;
+    }
+
+    @Scheduled(fixedDelayString = "${eshop.purge.poll-interval-ms:1000}",
+            initialDelayString = "${eshop.purge.poll-interval-ms:1000}")
+    public void relever() {
+        for (Long id : purgeService.getPurgeIdsEnCours()) {
+            if (enCours.add(id)) {
+                executor.execute(() -> executer(id));
+            }
+        }
+    }
+
+    private void executer(Long id) {
+        try {
+            while (!purgeService.purgerTranche(id)) {
+                TimeUnit.MILLISECONDS.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            // Arrêt : la purge reprendra à la tranche suivante au prochain démarrage
+            Thread.currentThread().interrupt();
+        } finally {
+            enCours.remove(id);
+        }
+    }
+
+    @PreDestroy
+    public void arreter() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
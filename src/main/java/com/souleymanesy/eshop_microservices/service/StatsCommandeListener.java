@@ -0,0 +1,89 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Répercute chaque écriture JPA sur une {@link Commande} dans les agrégats de {@link StatsService},
+ * dans la même transaction : saveCommande, deleteCommande, mais aussi passerCommande et le
+ * traitement de l'outbox, qui changent statut et montant.
+ * <p>
+ * L'état avant mise à jour vient du contexte de persistance (l'entité modifiée par le contrôleur
+ * puis enregistrée est déjà gérée). Une mise à jour sans état connu, ou faite hors JPA, n'est pas
+ * répercutée : la réconciliation la signale.
+ */
+@Component
+class StatsCommandeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final StatsService statsService;
+
+    @Autowired
+    StatsCommandeListener(EntityManagerFactory entityManagerFactory, StatsService statsService) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.statsService = statsService;
+    }
+
+    @PostConstruct
+    void enregistrer() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Commande) {
+            statsService.appliquer(null, contribution(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Commande && event.getOldState() != null) {
+            statsService.appliquer(contribution(event.getPersister(), event.getOldState()),
+                    contribution(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Commande) {
+            statsService.appliquer(contribution(event.getPersister(), event.getDeletedState()), null);
+        }
+    }
+
+    // Agrégats mis à jour dans la transaction de l'écriture, pas après le commit
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static StatsService.Contribution contribution(EntityPersister persister, Object[] state) {
+        User user = (User) state[persister.getPropertyIndex("user")];
+        return StatsService.Contribution.of(
+                (LocalDateTime) state[persister.getPropertyIndex("dateCommande")],
+                (String) state[persister.getPropertyIndex("statut")],
+                // Id lu sur le proxy, sans le charger
+                user != null ? user.getId() : null,
+                (Double) state[persister.getPropertyIndex("montantTotal")]);
+    }
+}
@@ -0,0 +1,423 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.dto.StatJourSummary;
+import com.souleymanesy.eshop_microservices.dto.StatStatutSummary;
+import com.souleymanesy.eshop_microservices.dto.StatUserSummary;
+import com.souleymanesy.eshop_microservices.dto.StatsEcart;
+import com.souleymanesy.eshop_microservices.dto.StatsReconciliation;
+import com.souleymanesy.eshop_microservices.repository.StatJourRepository;
+import com.souleymanesy.eshop_microservices.repository.StatStatutRepository;
+import com.souleymanesy.eshop_microservices.repository.StatUserRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrégats des ventes : chiffre d'affaires par jour, nombre de commandes par statut, valeur
+ * cumulée par utilisateur. Les tableaux de bord les lisent au lieu de parcourir la table commande.
+ * <p>
+ * Les tables sont tenues à jour par {@link #appliquer}, appelé par {@link StatsCommandeListener}
+ * pour chaque insertion, mise à jour ou suppression de commande, dans la transaction de l'écriture :
+ * un UPSERT par ligne touchée, qui ajoute la différence entre l'ancien et le nouvel état. Une
+ * commande {@value CommandeService#STATUT_REJETEE} ne compte que dans son statut.
+ * <p>
+ * {@link #reconcilier} recalcule tout depuis la table commande, par tranches, et signale les écarts.
+ */
+@Service
+@Timed(value = "eshop.service", histogram = true)
+public class StatsService {
+
+    // Clé de stat_statut des commandes sans statut
+    public static final String SANS_STATUT = "SANS_STATUT";
+
+    // Écart de montant toléré (arrondis des sommes de double)
+    private static final double TOLERANCE = 0.005;
+    private static final int DETAILS_MAX = 100;
+
+    // UPSERT avec alias de ligne (MySQL 8.0.19+), values(col) étant dépréciée depuis MySQL 8.0.20 ;
+    // H2 (profil test) et MariaDB ne connaissent que values(col)
+    private static final String UPSERT_JOUR = "insert into stat_jour (jour, nombre_commandes, chiffre_affaires) "
+            + "values (?, ?, ?) as n on duplicate key update nombre_commandes = nombre_commandes + n.nombre_commandes, "
+            + "chiffre_affaires = chiffre_affaires + n.chiffre_affaires";
+    private static final String UPSERT_STATUT = "insert into stat_statut (statut, nombre_commandes) "
+            + "values (?, ?) as n on duplicate key update nombre_commandes = nombre_commandes + n.nombre_commandes";
+    private static final String UPSERT_USER = "insert into stat_user (user_id, nombre_commandes, valeur_totale) "
+            + "values (?, ?, ?) as n on duplicate key update nombre_commandes = nombre_commandes + n.nombre_commandes, "
+            + "valeur_totale = valeur_totale + n.valeur_totale";
+    private static final String UPSERT_JOUR_VALUES = "insert into stat_jour (jour, nombre_commandes, chiffre_affaires) "
+            + "values (?, ?, ?) on duplicate key update nombre_commandes = nombre_commandes + values(nombre_commandes), "
+            + "chiffre_affaires = chiffre_affaires + values(chiffre_affaires)";
+    private static final String UPSERT_STATUT_VALUES = "insert into stat_statut (statut, nombre_commandes) "
+            + "values (?, ?) on duplicate key update nombre_commandes = nombre_commandes + values(nombre_commandes)";
+    private static final String UPSERT_USER_VALUES = "insert into stat_user (user_id, nombre_commandes, valeur_totale) "
+            + "values (?, ?, ?) on duplicate key update nombre_commandes = nombre_commandes + values(nombre_commandes), "
+            + "valeur_totale = valeur_totale + values(valeur_totale)";
+
+    // Recalcul : tranche d'ids de commandes (jours et statuts), tranche d'ids d'utilisateurs (sur l'index
+    // idx_commande_user_date, qui contient montant_total et statut)
+    private static final String MAX_COMMANDE = "select max(id) from commande";
+    private static final String TRANCHE_COMMANDES = "select cast(date_commande as date) as jour, statut, count(*) as nombre, "
+            + "sum(montant_total) as montant from commande where id > ? and id <= ? "
+            + "group by cast(date_commande as date), statut";
+    private static final String MAX_USER = "select max(user_id) from (select max(user_id) as user_id from commande "
+            + "union all select max(user_id) from stat_user) ids";
+    private static final String TRANCHE_USERS = "select user_id, count(*) as nombre, sum(montant_total) as montant "
+            + "from commande where user_id > ? and user_id <= ? and (statut is null or statut <> '"
+            + CommandeService.STATUT_REJETEE + "') group by user_id";
+    private static final String STOCKES_USERS = "select user_id, nombre_commandes, valeur_totale from stat_user "
+            + "where user_id > ? and user_id <= ?";
+    private static final String STOCKES_JOURS = "select jour, nombre_commandes, chiffre_affaires from stat_jour";
+    private static final String STOCKES_STATUTS = "select statut, nombre_commandes from stat_statut";
+
+    // Correction : ligne d'agrégat verrouillée, puis recalcul de sa seule clé sur le primaire
+    private static final String VERROU_JOUR = "select nombre_commandes, chiffre_affaires from stat_jour "
+            + "where jour = ? for update";
+    private static final String VERROU_STATUT = "select nombre_commandes, 0 from stat_statut where statut = ? for update";
+    private static final String VERROU_USER = "select nombre_commandes, valeur_totale from stat_user "
+            + "where user_id = ? for update";
+    private static final String RECALCUL_JOUR = "select count(*), coalesce(sum(montant_total), 0) from commande "
+            + "where date_commande >= ? and date_commande < ? and (statut is null or statut <> '"
+            + CommandeService.STATUT_REJETEE + "')";
+    private static final String RECALCUL_STATUT = "select count(*), 0 from commande where statut = ?";
+    private static final String RECALCUL_SANS_STATUT = "select count(*), 0 from commande where statut is null";
+    private static final String RECALCUL_USER = "select count(*), coalesce(sum(montant_total), 0) from commande "
+            + "where user_id = ? and (statut is null or statut <> '" + CommandeService.STATUT_REJETEE + "')";
+
+    /**
+     * Part d'une commande dans les agrégats : le jour de {@code dateCommande}, le statut,
+     * l'utilisateur et le montant. Seuls ces champs comptent, une mise à jour qui ne les change
+     * pas ne touche aucune table.
+     */
+    public record Contribution(LocalDate jour, String statut, Long userId, double montant) {
+
+        public static Contribution of(LocalDateTime dateCommande, String statut, Long userId, double montant) {
+            return new Contribution(dateCommande != null ? dateCommande.toLocalDate() : null,
+                    statut != null ? statut : SANS_STATUT, userId, montant);
+        }
+
+        boolean venteComptee() {
+            return !CommandeService.STATUT_REJETEE.equals(statut);
+        }
+    }
+
+    // Nombre et montant cumulés d'une clé
+    private static final class Cumul {
+        long nombre;
+        double montant;
+
+        Cumul ajouter(long nombre, double montant) {
+            this.nombre += nombre;
+            this.montant += montant;
+            return this;
+        }
+    }
+
+    private final StatJourRepository statJourRepository;
+    private final StatStatutRepository statStatutRepository;
+    private final StatUserRepository statUserRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lecture;
+    private final TransactionTemplate ecriture;
+    private final int chunkSize;
+    private final String upsertJour;
+    private final String upsertStatut;
+    private final String upsertUser;
+    private final AtomicLong derniersEcarts = new AtomicLong();
+
+    @Autowired
+    public StatsService(StatJourRepository statJourRepository, StatStatutRepository statStatutRepository,
+                        StatUserRepository statUserRepository, UserRepository userRepository, JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                        @Value("${eshop.stats.reconciliation.chunk-size:10000}") int chunkSize) {
+        this.statJourRepository = statJourRepository;
+        this.statStatutRepository = statStatutRepository;
+        this.statUserRepository = statUserRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.lecture = new TransactionTemplate(transactionManager);
+        this.lecture.setReadOnly(true);
+        this.ecriture = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        boolean mysql = "MySQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        this.upsertJour = mysql ? UPSERT_JOUR : UPSERT_JOUR_VALUES;
+        this.upsertStatut = mysql ? UPSERT_STATUT : UPSERT_STATUT_VALUES;
+        this.upsertUser = mysql ? UPSERT_USER : UPSERT_USER_VALUES;
+        Gauge.builder("eshop.stats.ecarts", derniersEcarts, AtomicLong::get)
+                .description("Lignes d'agrégats divergentes à la dernière réconciliation")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StatJourSummary> getStatsParJour(LocalDate du, LocalDate au) {
+        return statJourRepository.findSummaries(du, au);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StatStatutSummary> getStatsParStatut() {
+        return statStatutRepository.findSummaries();
+    }
+
+    // Utilisateur sans commande : agrégat nul ; vide si l'utilisateur n'existe pas
+    @Transactional(readOnly = true)
+    public Optional<StatUserSummary> getStatsUser(Long userId) {
+        return statUserRepository.findSummaryById(userId)
+                .or(() -> userRepository.existsById(userId)
+                        ? Optional.of(new StatUserSummary(userId, 0, 0))
+                        : Optional.empty());
+    }
+
+    @Transactional(readOnly = true)
+    public List<StatUserSummary> getMeilleursClients(int limit) {
+        return statUserRepository.findTop(Limit.of(limit));
+    }
+
+    /**
+     * Retire des agrégats la part {@code avant} d'une commande et y ajoute la part {@code apres}
+     * (l'une ou l'autre nulle pour une création ou une suppression). À appeler dans la transaction
+     * qui écrit la commande.
+     */
+    public void appliquer(Contribution avant, Contribution apres) {
+        if (Objects.equals(avant, apres)) {
+            return;
+        }
+        if (avant == null || apres == null || !avant.statut().equals(apres.statut())) {
+            if (avant != null) {
+                jdbcTemplate.update(upsertStatut, avant.statut(), -1);
+            }
+            if (apres != null) {
+                jdbcTemplate.update(upsertStatut, apres.statut(), 1);
+            }
+        }
+        Map<LocalDate, Cumul> jours = new HashMap<>();
+        Map<Long, Cumul> users = new HashMap<>();
+        ventiler(avant, -1, jours, users);
+        ventiler(apres, 1, jours, users);
+        // Même jour ou même utilisateur avant et après : un seul UPSERT de la différence, aucun si elle est nulle
+        jours.forEach((jour, cumul) -> {
+            if (cumul.nombre != 0 || cumul.montant != 0) {
+                jdbcTemplate.update(upsertJour, jour, cumul.nombre, cumul.montant);
+            }
+        });
+        users.forEach((userId, cumul) -> {
+            if (cumul.nombre != 0 || cumul.montant != 0) {
+                jdbcTemplate.update(upsertUser, userId, cumul.nombre, cumul.montant);
+            }
+        });
+    }
+
+    /**
+     * Retire des agrégats un lot de commandes supprimées en masse, sans passer par les événements
+     * JPA (purge d'un utilisateur) : un UPSERT par jour, statut et utilisateur touchés. À appeler
+     * dans la transaction qui supprime les commandes.
+     */
+    public void retirer(Collection<Contribution> commandes) {
+        Map<String, Cumul> statuts = new HashMap<>();
+        Map<LocalDate, Cumul> jours = new HashMap<>();
+        Map<Long, Cumul> users = new HashMap<>();
+        for (Contribution commande : commandes) {
+            statuts.computeIfAbsent(commande.statut(), statut -> new Cumul()).ajouter(-1, 0);
+            ventiler(commande, -1, jours, users);
+        }
+        statuts.forEach((statut, cumul) -> jdbcTemplate.update(upsertStatut, statut, cumul.nombre));
+        jours.forEach((jour, cumul) -> jdbcTemplate.update(upsertJour, jour, cumul.nombre, cumul.montant));
+        users.forEach((userId, cumul) -> jdbcTemplate.update(upsertUser, userId, cumul.nombre, cumul.montant));
+    }
+
+    // Ligne d'un utilisateur supprimé, dont toutes les commandes ont été retirées
+    public void oublierUser(Long userId) {
+        statUserRepository.deleteById(userId);
+    }
+
+    private static void ventiler(Contribution contribution, int signe, Map<LocalDate, Cumul> jours,
+                                 Map<Long, Cumul> users) {
+        if (contribution == null || !contribution.venteComptee()) {
+            return;
+        }
+        if (contribution.jour() != null) {
+            jours.computeIfAbsent(contribution.jour(), jour -> new Cumul()).ajouter(signe, signe * contribution.montant());
+        }
+        if (contribution.userId() != null) {
+            users.computeIfAbsent(contribution.userId(), userId -> new Cumul()).ajouter(signe, signe * contribution.montant());
+        }
+    }
+
+    /**
+     * Recalcule les agrégats depuis la table commande et les compare aux tables stat_*.
+     * <p>
+     * Chaque tranche ({@code eshop.stats.reconciliation.chunk-size} ids) est lue dans sa propre
+     * transaction en lecture seule (réplica s'il est configuré) : la mémoire ne dépend que du
+     * nombre de jours et de statuts, et de la taille d'une tranche d'utilisateurs. Les commandes
+     * écrites pendant le recalcul peuvent apparaître comme des écarts transitoires : un écart qui
+     * persiste d'une exécution à l'autre est une vraie dérive.
+     * <p>
+     * Un écart n'est donc jamais appliqué tel quel : chacun est revérifié sur le primaire, dans sa
+     * propre transaction, en verrouillant la ligne d'agrégat puis en recalculant sa seule clé. Une
+     * écriture de commande en cours tient ce verrou jusqu'à son commit (son UPSERT a lieu dans sa
+     * transaction) : le recalcul voit soit la commande et sa part dans l'agrégat, soit ni l'une ni
+     * l'autre. Seule la différence confirmée est écrite, un écart transitoire ne touche rien.
+     *
+     * @param corriger applique aux agrégats les écarts confirmés sur le primaire
+     */
+    public StatsReconciliation reconcilier(boolean corriger) {
+        long debut = System.nanoTime();
+        List<StatsEcart> ecarts = new ArrayList<>();
+        long commandesLues = 0;
+
+        // Jours et statuts : une passe sur les commandes par tranches d'ids
+        Map<LocalDate, Cumul> jours = new TreeMap<>();
+        Map<String, Cumul> statuts = new TreeMap<>();
+        Long maxCommande = lecture.execute(status -> jdbcTemplate.queryForObject(MAX_COMMANDE, Long.class));
+        for (long borne = 0; maxCommande != null && borne < maxCommande; borne += chunkSize) {
+            long min = borne;
+            commandesLues += lecture.execute(status -> jdbcTemplate.query(TRANCHE_COMMANDES, rs -> {
+                long lues = 0;
+                while (rs.next()) {
+                    LocalDate jour = rs.getObject("jour", LocalDate.class);
+                    String statut = Objects.requireNonNullElse(rs.getString("statut"), SANS_STATUT);
+                    long nombre = rs.getLong("nombre");
+                    double montant = rs.getDouble("montant");
+                    statuts.computeIfAbsent(statut, cle -> new Cumul()).ajouter(nombre, 0);
+                    if (!CommandeService.STATUT_REJETEE.equals(statut)) {
+                        jours.computeIfAbsent(jour, cle -> new Cumul()).ajouter(nombre, montant);
+                    }
+                    lues += nombre;
+                }
+                return lues;
+            }, min, min + chunkSize));
+        }
+        Map<LocalDate, Cumul> joursStockes = new HashMap<>();
+        Map<String, Cumul> statutsStockes = new HashMap<>();
+        lecture.executeWithoutResult(status -> {
+            jdbcTemplate.query(STOCKES_JOURS, rs -> {
+                joursStockes.put(rs.getObject("jour", LocalDate.class),
+                        new Cumul().ajouter(rs.getLong("nombre_commandes"), rs.getDouble("chiffre_affaires")));
+            });
+            jdbcTemplate.query(STOCKES_STATUTS, rs -> {
+                statutsStockes.put(rs.getString("statut"), new Cumul().ajouter(rs.getLong("nombre_commandes"), 0));
+            });
+        });
+        comparer("stat_jour", jours, joursStockes, ecarts);
+        comparer("stat_statut", statuts, statutsStockes, ecarts);
+
+        // Utilisateurs : recalcul et lignes stockées d'une même tranche lus dans la même transaction
+        Long maxUser = lecture.execute(status -> jdbcTemplate.queryForObject(MAX_USER, Long.class));
+        for (long borne = 0; maxUser != null && borne < maxUser; borne += chunkSize) {
+            long min = borne;
+            lecture.executeWithoutResult(status -> {
+                Map<Long, Cumul> attendus = new TreeMap<>();
+                Map<Long, Cumul> stockes = new HashMap<>();
+                jdbcTemplate.query(TRANCHE_USERS, rs -> {
+                    attendus.put(rs.getLong("user_id"), new Cumul().ajouter(rs.getLong("nombre"), rs.getDouble("montant")));
+                }, min, min + chunkSize);
+                jdbcTemplate.query(STOCKES_USERS, rs -> {
+                    stockes.put(rs.getLong("user_id"),
+                            new Cumul().ajouter(rs.getLong("nombre_commandes"), rs.getDouble("valeur_totale")));
+                }, min, min + chunkSize);
+                comparer("stat_user", attendus, stockes, ecarts);
+            });
+        }
+
+        if (corriger && !ecarts.isEmpty()) {
+            ecarts.forEach(ecart -> ecriture.executeWithoutResult(status -> corriger(ecart)));
+        }
+        derniersEcarts.set(ecarts.size());
+        return new StatsReconciliation(commandesLues, ecarts.size(),
+                List.copyOf(ecarts.subList(0, Math.min(DETAILS_MAX, ecarts.size()))), corriger,
+                (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    // Réconciliation nocturne, en simple rapport (jauge eshop.stats.ecarts) ; "-" la désactive
+    @Scheduled(cron = "${eshop.stats.reconciliation.cron:0 30 3 * * *}")
+    public void reconciliationPlanifiee() {
+        reconcilier(false);
+    }
+
+    // Clés présentes d'un côté seulement comparées à un cumul nul
+    private static <K extends Comparable<? super K>> void comparer(String table, Map<K, Cumul> attendus, Map<K, Cumul> stockes,
+                                                           List<StatsEcart> ecarts) {
+        for (K cle : new TreeSet<>(union(attendus, stockes))) {
+            Cumul attendu = attendus.getOrDefault(cle, new Cumul());
+            Cumul stocke = stockes.getOrDefault(cle, new Cumul());
+            if (attendu.nombre != stocke.nombre || Math.abs(attendu.montant - stocke.montant) > TOLERANCE) {
+                ecarts.add(new StatsEcart(table, cle.toString(), attendu.nombre, stocke.nombre,
+                        attendu.montant, stocke.montant));
+            }
+        }
+    }
+
+    private static <K> List<K> union(Map<K, Cumul> attendus, Map<K, Cumul> stockes) {
+        List<K> cles = new ArrayList<>(attendus.keySet());
+        cles.addAll(stockes.keySet());
+        return cles;
+    }
+
+    // Différence entre le recalcul et la ligne verrouillée, rien si l'écart était transitoire
+    void corriger(StatsEcart ecart) {
+        switch (ecart.table()) {
+            case "stat_jour" -> {
+                LocalDate jour = LocalDate.parse(ecart.cle());
+                Cumul ecartConfirme = confirmer(lire(VERROU_JOUR, jour),
+                        lire(RECALCUL_JOUR, jour.atStartOfDay(), jour.plusDays(1).atStartOfDay()));
+                if (ecartConfirme != null) {
+                    jdbcTemplate.update(upsertJour, jour, ecartConfirme.nombre, ecartConfirme.montant);
+                }
+            }
+            case "stat_statut" -> {
+                Cumul recalcul = SANS_STATUT.equals(ecart.cle())
+                        ? lire(RECALCUL_SANS_STATUT)
+                        : lire(RECALCUL_STATUT, ecart.cle());
+                Cumul ecartConfirme = confirmer(lire(VERROU_STATUT, ecart.cle()), recalcul);
+                if (ecartConfirme != null) {
+                    jdbcTemplate.update(upsertStatut, ecart.cle(), ecartConfirme.nombre);
+                }
+            }
+            default -> {
+                long userId = Long.parseLong(ecart.cle());
+                Cumul ecartConfirme = confirmer(lire(VERROU_USER, userId), lire(RECALCUL_USER, userId));
+                if (ecartConfirme != null) {
+                    jdbcTemplate.update(upsertUser, userId, ecartConfirme.nombre, ecartConfirme.montant);
+                }
+            }
+        }
+    }
+
+    // Première ligne (nombre, montant) d'une requête, cumul nul si elle n'en renvoie aucune
+    private Cumul lire(String sql, Object... args) {
+        return jdbcTemplate.query(sql, rs -> rs.next()
+                ? new Cumul().ajouter(rs.getLong(1), rs.getDouble(2))
+                : new Cumul(), args);
+    }
+
+    private static Cumul confirmer(Cumul stocke, Cumul attendu) {
+        if (attendu.nombre == stocke.nombre && Math.abs(attendu.montant - stocke.montant) <= TOLERANCE) {
+            return null;
+        }
+        return new Cumul().ajouter(attendu.nombre - stocke.nombre, attendu.montant - stocke.montant);
+    }
+}
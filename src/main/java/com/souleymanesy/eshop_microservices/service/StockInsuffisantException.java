@@ -0,0 +1,16 @@
+package com.souleymanesy.eshop_microservices.service;
+
+// Levée quand une ligne de commande demande plus que le stock disponible du produit
+public class StockInsuffisantException extends RuntimeException {
+
+    private final Long produitId;
+
+    public StockInsuffisantException(Long produitId, int quantite) {
+        super("Stock insuffisant pour le produit " + produitId + " (quantité demandée : " + quantite + ")");
+        this.produitId = produitId;
+    }
+
+    public Long getProduitId() {
+        return produitId;
+    }
+}
@@ -1,21 +1,28 @@
 package com.souleymanesy.eshop_microservices.service;
 
+import com.souleymanesy.eshop_microservices.dto.PurgeSummary;
+import com.souleymanesy.eshop_microservices.dto.UserSummary;
 import com.souleymanesy.eshop_microservices.model.User;
 import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = "eshop.service", histogram = true)
 public class UserService {
 
     private final UserRepository userRepository;
+    private final PurgeService purgeService;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PurgeService purgeService) {
         this.userRepository = userRepository;
+        this.purgeService = purgeService;
     }
 
     public List<User> getAllUsers() {
@@ -26,11 +33,22 @@ public class UserService {
         return userRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
+    public List<UserSummary> getAllUserSummaries() {
+        return userRepository.findAllSummaries();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserSummary> getUserSummaryById(Long id) {
+        return userRepository.findSummaryById(id);
+    }
+
     public User saveUser(User user) {
         return userRepository.save(user);
     }
 
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+    // Utilisateur masqué aussitôt, commandes purgées en arrière-plan
+    public Optional<PurgeSummary> deleteUser(Long id) {
+        return purgeService.supprimerUser(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+-- Mise à niveau du schéma initial : versions et dates de modification (ETag, verrou optimiste), ids de
+-- produit par séquence, lignes de commande, outbox, agrégats de ventes et battement du réplica.
+-- Joué aussi bien sur une base neuve que sur une base existante marquée en version 1.
+
+alter table categorie add column version bigint not null default 0;
+alter table categorie add column date_modification datetime(6);
+
+-- Ids de produit alloués par blocs de 50 (séquence émulée par une table sous MySQL), au-delà des ids existants
+alter table produit modify column id bigint not null;
+alter table produit add column version bigint not null default 0;
+alter table produit add column date_modification datetime(6);
+
+create table produit_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into produit_seq select coalesce(max(id) + 51, 1) from produit;
+
+create index idx_produit_categorie_id on produit (categorie_id, id);
+create index idx_produit_categorie_prix on produit (categorie_id, prix);
+create index idx_produit_prix on produit (prix);
+
+create index idx_commande_user_date on commande (user_id, date_commande, id, montant_total, statut);
+
+create table ligne_commande (
+    id bigint not null auto_increment,
+    commande_id bigint not null,
+    produit_id bigint,
+    quantite integer not null,
+    prix_unitaire float(53) not null,
+    primary key (id),
+    constraint fk_ligne_commande_commande foreign key (commande_id) references commande (id),
+    constraint fk_ligne_commande_produit foreign key (produit_id) references produit (id)
+) engine=InnoDB;
+
+create table commande_outbox (
+    id bigint not null auto_increment,
+    commande_id bigint not null,
+    date_creation datetime(6) not null,
+    primary key (id),
+    constraint uk_commande_outbox_commande unique (commande_id)
+) engine=InnoDB;
+
+-- Agrégats initialisés depuis les commandes existantes (mêmes règles que StatsService)
+create table stat_jour (
+    jour date not null,
+    nombre_commandes bigint not null,
+    chiffre_affaires float(53) not null,
+    primary key (jour)
+) engine=InnoDB;
+
+insert into stat_jour (jour, nombre_commandes, chiffre_affaires)
+select cast(date_commande as date), count(*), sum(montant_total) from commande
+where statut is null or statut <> 'REJETEE' group by cast(date_commande as date);
+
+create table stat_statut (
+    statut varchar(255) not null,
+    nombre_commandes bigint not null,
+    primary key (statut)
+) engine=InnoDB;
+
+insert into stat_statut (statut, nombre_commandes)
+select coalesce(statut, 'SANS_STATUT'), count(*) from commande group by coalesce(statut, 'SANS_STATUT');
+
+create table stat_user (
+    user_id bigint not null,
+    nombre_commandes bigint not null,
+    valeur_totale float(53) not null,
+    primary key (user_id)
+) engine=InnoDB;
+
+insert into stat_user (user_id, nombre_commandes, valeur_totale)
+select user_id, count(*), sum(montant_total) from commande
+where statut is null or statut <> 'REJETEE' group by user_id;
+
+create index idx_stat_user_valeur on stat_user (valeur_totale);
+
+-- Battement écrit sur le primaire et relu sur le réplica (ReplicaLagMonitor)
+create table replica_heartbeat (
+    id int not null,
+    battement bigint not null,
+    primary key (id)
+) engine=InnoDB;
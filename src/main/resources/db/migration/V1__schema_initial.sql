@@ -0,0 +1,44 @@
+-- Schéma initial (MySQL 8, InnoDB) : celui que ddl-auto=update créait depuis les entités d'origine.
+-- Une base créée ainsi est marquée en version 1 sans rejouer ce script (baseline, profil prod) ; les
+-- scripts V<n>__*.sql suivants la mettent à niveau, comme une base neuve. Ne plus modifier ce fichier.
+
+create table app_user (
+    id bigint not null auto_increment,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    email varchar(255) not null,
+    nom varchar(255),
+    prenom varchar(255),
+    primary key (id),
+    constraint uk_app_user_username unique (username),
+    constraint uk_app_user_email unique (email)
+) engine=InnoDB;
+
+create table categorie (
+    id bigint not null auto_increment,
+    nom varchar(255) not null,
+    description varchar(255),
+    primary key (id),
+    constraint uk_categorie_nom unique (nom)
+) engine=InnoDB;
+
+create table produit (
+    id bigint not null auto_increment,
+    nom varchar(255) not null,
+    description varchar(255),
+    prix float(53) not null,
+    quantite_stock integer not null,
+    categorie_id bigint not null,
+    primary key (id),
+    constraint fk_produit_categorie foreign key (categorie_id) references categorie (id)
+) engine=InnoDB;
+
+create table commande (
+    id bigint not null auto_increment,
+    date_commande datetime(6) not null,
+    montant_total float(53) not null,
+    statut varchar(255),
+    user_id bigint not null,
+    primary key (id),
+    constraint fk_commande_user foreign key (user_id) references app_user (id)
+) engine=InnoDB;
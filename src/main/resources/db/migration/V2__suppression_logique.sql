@@ -0,0 +1,18 @@
+-- Suppression logique des catégories et des utilisateurs, purge de leurs enfants par tranches
+
+alter table categorie add column supprime_le datetime(6);
+alter table app_user add column supprime_le datetime(6);
+
+create table purge_suppression (
+    id bigint not null auto_increment,
+    type varchar(255) not null,
+    cible_id bigint not null,
+    enfants_total bigint not null,
+    enfants_supprimes bigint not null,
+    dernier_id bigint not null,
+    date_demande datetime(6) not null,
+    date_fin datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_purge_date_fin on purge_suppression (date_fin, id);
@@ -0,0 +1,15 @@
+-- Clés Idempotency-Key de POST /api/commandes et réponses enregistrées pour les rejouer
+
+create table idempotence_cle (
+    cle varchar(255) not null,
+    empreinte varchar(64) not null,
+    statut integer,
+    type_contenu varchar(255),
+    location varchar(1024),
+    corps longtext,
+    date_creation datetime(6) not null,
+    expire_le datetime(6) not null,
+    primary key (cle)
+) engine=InnoDB;
+
+create index idx_idempotence_cle_expire_le on idempotence_cle (expire_le);
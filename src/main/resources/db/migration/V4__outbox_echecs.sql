@@ -0,0 +1,5 @@
+-- Échecs de traitement des commandes asynchrones : nombre d'échecs et prochain essai (reprise différée),
+-- la commande est refusée au-delà de eshop.commande.outbox.max-echecs
+
+alter table commande_outbox add column tentatives integer not null default 0;
+alter table commande_outbox add column prochain_essai datetime(6);
@@ -0,0 +1,86 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.service.StatsService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Les migrations Flyway produisent le schéma attendu par les entités : le contexte démarre avec
+ * ddl-auto=validate et le dialecte MySQL (base H2 en mode MySQL, sans schéma généré par Hibernate).
+ * Une base existante au schéma d'origine, marquée en version 1 comme en profil prod, est mise à niveau
+ * avec ses données.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:flyway;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect"})
+@ActiveProfiles("test")
+class FlywaySchemaTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Test
+    void migrationsMatchEntities() {
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("4");
+        assertThat(flyway.info().pending()).isEmpty();
+
+        // Ids de produit tirés de la table produit_seq créée par la migration
+        Categorie categorie = categorieRepository.save(new Categorie(null, "migration", null, null, null, null, null));
+        Produit produit = produitRepository.save(new Produit(null, "schéma", null, 1.0, 1, null, null, categorie));
+        assertThat(produitRepository.findById(produit.getId())).isPresent();
+
+        produitRepository.delete(produit);
+        categorieRepository.delete(categorie);
+    }
+
+    @Test
+    void existingDatabaseIsBaselinedThenUpgraded() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:flyway-baseline;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        // Base créée sans Flyway (ddl-auto=update), avec des données
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__schema_initial.sql"));
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("insert into app_user (id, username, password, email) values (1, 'ancien', 'x', 'ancien@test.sn')");
+        jdbc.update("insert into categorie (id, nom) values (1, 'ancienne')");
+        jdbc.update("insert into produit (id, nom, prix, quantite_stock, categorie_id) values (120, 'ancien', 5.0, 1, 1)");
+        jdbc.update("insert into commande (date_commande, montant_total, statut, user_id) values (?, 30.0, null, 1)",
+                LocalDateTime.of(2020, 1, 2, 10, 0));
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertThat(jdbc.queryForObject("select version from produit where id = 120", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("select next_val from produit_seq", Long.class)).isGreaterThan(120 + 50);
+        assertThat(jdbc.queryForObject("select valeur_totale from stat_user where user_id = 1", Double.class)).isEqualTo(30.0);
+        assertThat(jdbc.queryForObject("select nombre_commandes from stat_statut where statut = ?", Long.class,
+                StatsService.SANS_STATUT)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("select chiffre_affaires from stat_jour where jour = ?", Double.class,
+                LocalDate.of(2020, 1, 2))).isEqualTo(30.0);
+    }
+}
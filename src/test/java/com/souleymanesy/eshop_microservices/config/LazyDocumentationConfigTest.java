@@ -0,0 +1,40 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import org.junit.jupiter.api.Test;
+import org.springdoc.webmvc.api.OpenApiWebMvcResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// springdoc absent du démarrage, construit par la première requête sur la documentation
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LazyDocumentationConfigTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void openApiIsBuiltOnFirstDocumentationRequest() throws Exception {
+        String[] noms = context.getBeanNamesForType(OpenApiWebMvcResource.class, false, false);
+        assertThat(noms).isNotEmpty();
+        assertThat(noms).noneMatch(context.getBeanFactory()::containsSingleton);
+
+        mockMvc.perform(get("/v3/api-docs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paths['/api/produits']").exists());
+        assertThat(noms).allMatch(context.getBeanFactory()::containsSingleton);
+    }
+}
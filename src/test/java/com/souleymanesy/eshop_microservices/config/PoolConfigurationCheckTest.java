@@ -0,0 +1,41 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Réglages que Hikari corrigerait en silence, et pool trop petit pour l'outbox des commandes
+class PoolConfigurationCheckTest {
+
+    @Test
+    void acceptsProductionSettings() {
+        HikariConfig pool = new HikariConfig();
+        pool.setMaximumPoolSize(20);
+        pool.setMinimumIdle(20);
+        pool.setConnectionTimeout(2000);
+        pool.setMaxLifetime(1_800_000);
+        pool.setLeakDetectionThreshold(30_000);
+
+        assertThat(PoolConfigurationCheck.verifier(pool, 4)).isEmpty();
+    }
+
+    @Test
+    void rejectsSettingsHikariWouldSilentlyChange() {
+        HikariConfig pool = new HikariConfig();
+        pool.setPoolName("eshop-primaire");
+        pool.setMaximumPoolSize(4);
+        pool.setMinimumIdle(10);
+        pool.setMaxLifetime(10_000);
+        pool.setLeakDetectionThreshold(500);
+
+        assertThat(PoolConfigurationCheck.verifier(pool, 4))
+                .hasSize(4)
+                .allMatch(erreur -> erreur.startsWith("eshop-primaire : "))
+                .anyMatch(erreur -> erreur.contains("eshop.commande.outbox.threads"));
+
+        // Le réplica en lecture seule ne sert pas l'outbox
+        pool.setReadOnly(true);
+        assertThat(PoolConfigurationCheck.verifier(pool, 4)).hasSize(3);
+    }
+}
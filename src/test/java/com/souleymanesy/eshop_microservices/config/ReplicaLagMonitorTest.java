@@ -0,0 +1,76 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mesure du retard avec les réglages par défaut (tolérance 1000 ms, relevé toutes les 1000 ms) :
+ * un réplica à jour reste dans la tolérance même quand les relevés sont plus espacés qu'elle.
+ */
+class ReplicaLagMonitorTest {
+
+    // eshop.datasource.replica.max-lag-ms et lag-check-interval-ms par défaut
+    private static final long MAX_LAG_MS = 1000;
+    private static final long INTERVALLE_MS = 1000;
+
+    private final DataSource primaire = base("lag-primaire");
+    private final DataSource replica = base("lag-replica");
+    private final ReplicaLagMonitor monitor = new ReplicaLagMonitor(primaire, replica, MAX_LAG_MS, new SimpleMeterRegistry());
+
+    private static DataSource base(String nom) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + nom + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (DataSource base : new DataSource[]{primaire, replica}) {
+            JdbcTemplate jdbc = new JdbcTemplate(base);
+            jdbc.execute("drop table if exists replica_heartbeat");
+            jdbc.execute("create table replica_heartbeat (id int not null primary key, battement bigint not null)");
+        }
+    }
+
+    @Test
+    void upToDateReplicaStaysWithinToleranceBetweenChecks() throws InterruptedException {
+        monitor.refresh();
+        assertThat(monitor.isWithinTolerance()).isFalse();
+
+        for (int releve = 0; releve < 3; releve++) {
+            repliquer();
+            Thread.sleep(INTERVALLE_MS + 100);
+            monitor.refresh();
+            assertThat(monitor.getLagMs()).isZero();
+            assertThat(monitor.isWithinTolerance()).isTrue();
+        }
+    }
+
+    @Test
+    void stalledReplicaLeavesTolerance() throws InterruptedException {
+        monitor.refresh();
+        repliquer();
+        monitor.refresh();
+        assertThat(monitor.isWithinTolerance()).isTrue();
+
+        // Plus rien n'est répliqué : le retard grandit d'un intervalle par relevé
+        Thread.sleep(INTERVALLE_MS + 100);
+        monitor.refresh();
+        Thread.sleep(INTERVALLE_MS + 100);
+        monitor.refresh();
+        assertThat(monitor.getLagMs()).isGreaterThan(MAX_LAG_MS);
+        assertThat(monitor.isWithinTolerance()).isFalse();
+    }
+
+    private void repliquer() {
+        Long battement = new JdbcTemplate(primaire).queryForObject("select battement from replica_heartbeat where id = 1", Long.class);
+        JdbcTemplate jdbc = new JdbcTemplate(replica);
+        jdbc.update("delete from replica_heartbeat");
+        jdbc.update("insert into replica_heartbeat (id, battement) values (1, ?)", battement);
+    }
+}
@@ -0,0 +1,156 @@
+package com.souleymanesy.eshop_microservices.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.dto.ProduitFiltre;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import com.souleymanesy.eshop_microservices.service.ProduitService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Routage primaire / réplica avec deux bases H2 : la « réplication » est une copie complète du
+ * primaire vers le réplica, faite par le test au moment voulu.
+ */
+@SpringBootTest(properties = {
+        "eshop.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "eshop.datasource.replica.lag-check-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private Categorie categorie;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        categorie = categorieRepository.save(new Categorie(null, "livres", null, null, null, null, null));
+        replicaLagMonitor.refresh();
+        replicate();
+        replicaLagMonitor.refresh();
+        assertThat(replicaLagMonitor.isWithinTolerance()).isTrue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void readOnlyTransactionsReadFromReplica() throws IOException {
+        produitRepository.save(new Produit(null, "roman", null, 12.5, 3, null, null, categorie));
+
+        // Pas encore répliqué : la lecture en readOnly ne le voit pas
+        assertThat(produitService.getProduits(ProduitFiltre.AUCUN, null, null, 10).getContent()).isEmpty();
+
+        replicate();
+        assertThat(produitService.getProduits(ProduitFiltre.AUCUN, null, null, 10).getContent())
+                .extracting("nom").containsExactly("roman");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        replica.update("UPDATE replica_heartbeat SET battement = ? WHERE id = 1",
+                System.currentTimeMillis() - 3_600_000);
+        replicaLagMonitor.refresh();
+        assertThat(replicaLagMonitor.isWithinTolerance()).isFalse();
+
+        produitRepository.save(new Produit(null, "roman", null, 12.5, 3, null, null, categorie));
+        assertThat(produitService.getProduits(ProduitFiltre.AUCUN, null, null, 10).getContent()).hasSize(1);
+    }
+
+    @Test
+    void clientReadsItsOwnCommandeFromPrimary() throws Exception {
+        User user = userRepository.save(new User(null, "client", "secret", "client@test.sn", null, null, null, null));
+        replicate();
+
+        Cookie sticky = mockMvc.perform(post("/api/commandes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "user", Map.of("id", user.getId()), "montantTotal", 10.0, "statut", "NOUVELLE"))))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWrites.COOKIE))
+                .andReturn().getResponse().getCookie(ReadYourWrites.COOKIE);
+
+        mockMvc.perform(get("/api/users/{id}/commandes", user.getId()).cookie(sticky))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.commandeList.length()").value(1));
+        // Un autre client lit le réplica, où la commande n'est pas encore arrivée
+        mockMvc.perform(get("/api/users/{id}/commandes", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded").doesNotExist());
+    }
+
+    // Copie complète du primaire sur le réplica
+    private void replicate() throws IOException {
+        File script = File.createTempFile("replica", ".sql");
+        try {
+            new JdbcTemplate(primaryDataSource).execute("SCRIPT TO '" + script.getAbsolutePath() + "'");
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+        } finally {
+            script.delete();
+        }
+    }
+}
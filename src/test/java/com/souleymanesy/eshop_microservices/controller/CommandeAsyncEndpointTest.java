@@ -0,0 +1,161 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeOutboxRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import com.souleymanesy.eshop_microservices.service.CommandeOutboxWorker;
+import com.souleymanesy.eshop_microservices.service.CommandeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/commandes avec « Prefer: respond-async » : 202 avec lien de suivi, statut final fixé
+ * par le pool de l'outbox, 503 quand l'outbox est pleine. Le relevé est déclenché à la main.
+ */
+@SpringBootTest(properties = {
+        "eshop.commande.outbox.max-backlog=1",
+        "eshop.commande.outbox.poll-interval-ms=3600000",
+        "eshop.commande.outbox.resync-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CommandeAsyncEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CommandeOutboxWorker commandeOutboxWorker;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private CommandeOutboxRepository commandeOutboxRepository;
+
+    private User user;
+    private Produit produit;
+
+    @BeforeEach
+    void setUp() {
+        Categorie categorie = categorieRepository.save(new Categorie(null, "livres", null, null, null, null, null));
+        produit = produitRepository.save(new Produit(null, "roman", null, 12.5, 3, null, null, categorie));
+        user = userRepository.save(new User(null, "client", "secret", "client@test.sn", null, null, null, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeOutboxRepository.deleteAll();
+        commandeOutboxWorker.recompter();
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void acceptsThenConfirmsInBackground() throws Exception {
+        MockHttpServletResponse accepted = placer(2)
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andReturn().getResponse();
+        JsonNode commande = objectMapper.readTree(accepted.getContentAsString());
+        assertThat(commande.get("statut").asText()).isEqualTo(CommandeService.STATUT_EN_ATTENTE);
+        URI location = URI.create(accepted.getHeader(HttpHeaders.LOCATION));
+
+        // Outbox pleine (max-backlog=1) : contre-pression
+        placer(1)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+        assertThat(statutApresTraitement(location)).isEqualTo(CommandeService.STATUT_CONFIRMEE);
+        assertThat(produitRepository.findById(produit.getId()).orElseThrow().getQuantiteStock()).isEqualTo(1);
+        assertThat(commandeOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void rejectsWhenStockIsInsufficient() throws Exception {
+        URI location = URI.create(placer(5)
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION));
+
+        assertThat(statutApresTraitement(location)).isEqualTo(CommandeService.STATUT_REJETEE);
+        assertThat(produitRepository.findById(produit.getId()).orElseThrow().getQuantiteStock()).isEqualTo(3);
+    }
+
+    @Test
+    void unknownProduitIsRejectedSynchronously() throws Exception {
+        mockMvc.perform(post("/api/commandes")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "user", Map.of("id", user.getId()),
+                                "lignes", List.of(Map.of("produitId", Long.MAX_VALUE, "quantite", 1))))))
+                .andExpect(status().isBadRequest());
+        assertThat(commandeOutboxRepository.count()).isZero();
+    }
+
+    private ResultActions placer(int quantite) throws Exception {
+        return mockMvc.perform(post("/api/commandes")
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                        "user", Map.of("id", user.getId()),
+                        "lignes", List.of(Map.of("produitId", produit.getId(), "quantite", quantite))))));
+    }
+
+    // Déclenche le relevé puis suit le lien jusqu'à un statut final
+    private String statutApresTraitement(URI location) throws Exception {
+        commandeOutboxWorker.drainer();
+        for (int essai = 0; essai < 100; essai++) {
+            String body = mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String statut = objectMapper.readTree(body).get("statut").asText();
+            if (!CommandeService.STATUT_EN_ATTENTE.equals(statut)) {
+                return statut;
+            }
+            Thread.sleep(50);
+        }
+        return CommandeService.STATUT_EN_ATTENTE;
+    }
+}
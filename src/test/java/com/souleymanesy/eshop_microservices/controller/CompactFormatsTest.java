@@ -0,0 +1,123 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.souleymanesy.eshop_microservices.dto.ProduitPage;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Représentations de GET /api/produits : HAL JSON par défaut, Smile et CBOR sur demande (liens des
+ * lignes en gabarits), et compression gzip par Tomcat au-delà du seuil.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CompactFormatsTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    private Categorie categorie;
+    private final List<Produit> produits = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        categorie = categorieRepository.save(new Categorie(null, "formats", null, null, null, null, null));
+        for (int i = 0; i < 30; i++) {
+            produits.add(produitRepository.save(new Produit(null, "format-" + i, "description " + i, 5.0 + i, 10, null, null, categorie)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void smileAndCborCarryTheSamePageAsTemplates() throws Exception {
+        for (MediaType format : List.of(MediaType.parseMediaType(ProduitController.SMILE_VALUE), MediaType.APPLICATION_CBOR)) {
+            JsonFactory factory = format.equals(MediaType.APPLICATION_CBOR) ? new CBORFactory() : new SmileFactory();
+            MockHttpServletResponse response = mockMvc.perform(get("/api/produits")
+                            .param("categorieId", categorie.getId().toString())
+                            .param("size", "20")
+                            .accept(format))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            assertThat(MediaType.parseMediaType(response.getContentType()).isCompatibleWith(format)).isTrue();
+            assertThat(response.getHeader(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+            assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("W/\"produits-compact-");
+
+            ProduitPage page = new ObjectMapper(factory).findAndRegisterModules()
+                    .readValue(response.getContentAsByteArray(), ProduitPage.class);
+            assertThat(page.items()).hasSize(20);
+            assertThat(page.items().get(0).id()).isEqualTo(produits.get(0).getId());
+            assertThat(page.items().get(0).categorieId()).isEqualTo(categorie.getId());
+            assertThat(page.size()).isEqualTo(20);
+            assertThat(page.links()).containsKeys("self", "next");
+            assertThat(page.templates().get("self")).endsWith("/api/produits/{id}");
+            assertThat(page.templates().get("categorie")).endsWith("/api/categories/{categorieId}");
+        }
+
+        MockHttpServletResponse hal = mockMvc.perform(get("/api/produits").param("size", "20"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertThat(MediaType.parseMediaType(hal.getContentType()).isCompatibleWith(MediaTypes.HAL_JSON)).isTrue();
+        assertThat(hal.getHeader(HttpHeaders.ETAG)).doesNotStartWith("W/\"produits-compact-");
+    }
+
+    @Test
+    void largeJsonResponsesAreGzipped() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create("http://localhost:" + port + "/api/produits?size=30&categorieId=" + categorie.getId());
+        HttpResponse<byte[]> gzip = client.send(HttpRequest.newBuilder(uri).header(HttpHeaders.ACCEPT_ENCODING, "gzip").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> brut = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(gzip.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+        assertThat(brut.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+        byte[] decompresse = new GZIPInputStream(new ByteArrayInputStream(gzip.body())).readAllBytes();
+        assertThat(decompresse).isEqualTo(brut.body());
+        assertThat(gzip.body().length).isLessThan(brut.body().length / 4);
+    }
+}
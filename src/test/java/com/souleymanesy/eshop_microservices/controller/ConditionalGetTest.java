@@ -0,0 +1,148 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.service.CategorieService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag / Last-Modified sur les produits et catégories : 304 sans corps tant que la version ne
+ * change pas, 200 avec un nouvel ETag après une écriture (y compris la réservation de stock en JDBC).
+ * Un PUT qui porte une version périmée est refusé en 409.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private CategorieService categorieService;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    private Categorie categorie;
+    private Produit produit;
+
+    @BeforeEach
+    void setUp() {
+        categorie = categorieService.saveCategorie(new Categorie(null, "livres", null, null, null, null, null));
+        produit = produitRepository.save(new Produit(null, "roman", null, 12.5, 3, null, null, categorie));
+    }
+
+    @AfterEach
+    void tearDown() {
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void produitByIdHonorsIfNoneMatchAndIfModifiedSince() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/produits/{id}", produit.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+        assertThat(etag).startsWith("W/\"produit-");
+        assertThat(lastModified).isNotNull();
+
+        MockHttpServletResponse notModified = mockMvc.perform(get("/api/produits/{id}", produit.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse();
+        assertThat(notModified.getContentAsByteArray()).isEmpty();
+        mockMvc.perform(get("/api/produits/{id}", produit.getId())
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/api/produits/{id}", produit.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\":\"roman\",\"prix\":15.0,\"quantiteStock\":3}"))
+                .andExpect(status().isOk());
+
+        String updated = mockMvc.perform(get("/api/produits/{id}", produit.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(updated).isNotEqualTo(etag);
+    }
+
+    @Test
+    void categorieListShortCircuitsUntilACategorieChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        categorieService.saveCategorie(new Categorie(null, "jeux", null, null, null, null, null));
+        mockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void produitPageChangesWithStockReservation() throws Exception {
+        String etag = mockMvc.perform(get("/api/produits"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/produits").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        assertThat(produitRepository.reserverStock(produit.getId(), 1)).isEqualTo(1);
+        mockMvc.perform(get("/api/produits").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/produits/{id}", produit.getId()).header(HttpHeaders.IF_NONE_MATCH,
+                        "W/\"produit-" + produit.getId() + "-" + produit.getVersion() + "\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void putWithStaleVersionIsRejected() throws Exception {
+        Long version = produit.getVersion();
+        mockMvc.perform(put("/api/produits/{id}", produit.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\":\"roman\",\"prix\":15.0,\"quantiteStock\":3,\"version\":" + version + "}"))
+                .andExpect(status().isOk());
+
+        // Même version qu'avant la première écriture, puis version d'avant une réservation en JDBC
+        mockMvc.perform(put("/api/produits/{id}", produit.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\":\"essai\",\"prix\":20.0,\"quantiteStock\":3,\"version\":" + version + "}"))
+                .andExpect(status().isConflict());
+        Long courante = produitRepository.findById(produit.getId()).orElseThrow().getVersion();
+        assertThat(produitRepository.reserverStock(produit.getId(), 1)).isEqualTo(1);
+        mockMvc.perform(put("/api/produits/{id}", produit.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\":\"essai\",\"prix\":20.0,\"quantiteStock\":3,\"version\":" + courante + "}"))
+                .andExpect(status().isConflict());
+
+        Produit enBase = produitRepository.findById(produit.getId()).orElseThrow();
+        assertThat(enBase.getPrix()).isEqualTo(15.0);
+        assertThat(enBase.getQuantiteStock()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,176 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.IdempotenceCleRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import com.souleymanesy.eshop_microservices.service.IdempotenceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Rejeu par Idempotency-Key : nouvelle tentative, clé réutilisée pour une autre commande, nouvelle
+ * tentative depuis une autre adresse, doublons simultanés regroupés sur une seule insertion, réservation reprise.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private IdempotenceCleRepository idempotenceCleRepository;
+
+    @Autowired
+    private IdempotenceService idempotenceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "idempotence", "secret", "idempotence@test.sn", null, null, null, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotenceCleRepository.deleteAll();
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void retryReplaysStoredResponseWithoutSecondInsert() throws Exception {
+        MockHttpServletResponse premiere = placer("cle-1", 42.0);
+        assertThat(premiere.getStatus()).isEqualTo(201);
+        assertThat(premiere.getHeader("Idempotent-Replayed")).isNull();
+
+        MockHttpServletResponse rejeu = placer("cle-1", 42.0);
+        assertThat(rejeu.getStatus()).isEqualTo(201);
+        assertThat(rejeu.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(rejeu.getContentAsString()).isEqualTo(premiere.getContentAsString());
+        assertThat(commandeRepository.count()).isEqualTo(1);
+        assertThat(idempotenceCleRepository.findAll()).singleElement()
+                .satisfies(ligne -> assertThat(ligne.getStatut()).isEqualTo(201));
+
+        // Même clé, autre commande
+        assertThat(placer("cle-1", 99.0).getStatus()).isEqualTo(422);
+        // Sans clé, aucune déduplication
+        mockMvc.perform(post("/api/commandes").contentType(MediaType.APPLICATION_JSON).content(corps(42.0)));
+        assertThat(commandeRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void retryFromAnotherAddressIsReplayed() throws Exception {
+        assertThat(placer("cle-mobile", 42.0, "10.0.0.1").getStatus()).isEqualTo(201);
+
+        // Passage du Wi-Fi au réseau cellulaire entre deux tentatives
+        MockHttpServletResponse rejeu = placer("cle-mobile", 42.0, "10.0.0.2");
+        assertThat(rejeu.getStatus()).isEqualTo(201);
+        assertThat(rejeu.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(commandeRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void takenOverReservationCannotBeRecordedOrReleased() {
+        IdempotenceService.Reservation premiere = idempotenceService.reserver("cle-reprise", "a");
+        // Réservation abandonnée depuis plus que claim-timeout-ms, reprise par une autre exécution
+        jdbcTemplate.update("update idempotence_cle set date_creation = ? where cle = ?",
+                premiere.dateCreation().minusHours(1), "cle-reprise");
+        IdempotenceService.Reservation reprise = idempotenceService.reserver("cle-reprise", "a");
+        assertThat(reprise.reservee()).isTrue();
+
+        IdempotenceService.Reponse tardive = new IdempotenceService.Reponse("a", 201, null, null, new byte[0]);
+        assertThat(idempotenceService.enregistrer("cle-reprise", premiere.dateCreation(), tardive)).isFalse();
+        idempotenceService.liberer("cle-reprise", "a", premiere.dateCreation());
+        assertThat(idempotenceCleRepository.findById("cle-reprise")).isPresent();
+
+        assertThat(idempotenceService.enregistrer("cle-reprise", reprise.dateCreation(), tardive)).isTrue();
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneExecution() throws Exception {
+        int clients = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch depart = new CountDownLatch(1);
+        try {
+            List<Future<MockHttpServletResponse>> reponses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                Callable<MockHttpServletResponse> tentative = () -> {
+                    depart.await();
+                    return placer("cle-simultanee", 10.0);
+                };
+                reponses.add(executor.submit(tentative));
+            }
+            depart.countDown();
+            String attendu = null;
+            for (Future<MockHttpServletResponse> reponse : reponses) {
+                assertThat(reponse.get().getStatus()).isEqualTo(201);
+                String corps = reponse.get().getContentAsString();
+                attendu = attendu != null ? attendu : corps;
+                assertThat(corps).isEqualTo(attendu);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(commandeRepository.count()).isEqualTo(1);
+    }
+
+    private MockHttpServletResponse placer(String cle, double montant) throws Exception {
+        return placer(cle, montant, "127.0.0.1");
+    }
+
+    private MockHttpServletResponse placer(String cle, double montant, String client) throws Exception {
+        return mockMvc.perform(post("/api/commandes")
+                        .with(request -> {
+                            request.setRemoteAddr(client);
+                            return request;
+                        })
+                        .header("Idempotency-Key", cle)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corps(montant)))
+                .andReturn().getResponse();
+    }
+
+    private String corps(double montant) throws Exception {
+        return objectMapper.writeValueAsString(Map.of(
+                "user", Map.of("id", user.getId()),
+                "dateCommande", "2033-01-02T10:00:00",
+                "montantTotal", montant));
+    }
+}
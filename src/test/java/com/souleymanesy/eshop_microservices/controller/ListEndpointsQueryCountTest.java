@@ -0,0 +1,132 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Vérifie que les listes de produits et de commandes s'exécutent en une seule requête SQL,
+ * quel que soit le nombre de lignes (pas de N+1 sur categorie / user), et qu'une page lue avec
+ * {@code before} n'a de lien next que s'il reste des produits du filtre après elle.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListEndpointsQueryCountTest {
+
+    private static final int ROWS = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    private Statistics statistics;
+    private Categorie premiere;
+    private Long dernierProduitId;
+
+    @BeforeEach
+    void setUp() {
+        for (int c = 0; c < 3; c++) {
+            Categorie categorie = categorieRepository.save(new Categorie(null, "categorie-" + c, null, null, null, null, null));
+            for (int i = 0; i < ROWS / 3; i++) {
+                Produit produit = produitRepository.save(new Produit(null, "produit-" + c + "-" + i, null, 9.99, 5, null, null, categorie));
+                if (c == 0) {
+                    dernierProduitId = produit.getId();
+                }
+            }
+            if (c == 0) {
+                premiere = categorie;
+            }
+        }
+        for (int u = 0; u < 3; u++) {
+            User user = userRepository.save(new User(null, "user" + u, "secret", "user" + u + "@test.sn", null, null, null, null));
+            for (int i = 0; i < ROWS / 3; i++) {
+                commandeRepository.save(new Commande(null, LocalDateTime.now(), 20.0, "NOUVELLE", user, null));
+            }
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void produitsPageRunsSingleQuery() throws Exception {
+        mockMvc.perform(get("/api/produits").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.produitList.length()").value(20))
+                .andExpect(jsonPath("$._links.next.href").exists())
+                // Pas de COUNT : aucun total ni numéro de page publié
+                .andExpect(jsonPath("$.page").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void beforePageLinksNextOnlyWhenRowsFollow() throws Exception {
+        // Curseur au-delà du dernier produit de la catégorie : les produits suivants sont hors filtre
+        mockMvc.perform(get("/api/produits").param("categorieId", premiere.getId().toString())
+                        .param("before", Long.toString(dernierProduitId + 1)).param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.produitList.length()").value(5))
+                .andExpect(jsonPath("$._links.prev.href").exists())
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+
+        mockMvc.perform(get("/api/produits").param("categorieId", premiere.getId().toString())
+                        .param("before", dernierProduitId.toString()).param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next.href").exists());
+    }
+
+    @Test
+    void commandesListRunsSingleQuery() throws Exception {
+        mockMvc.perform(get("/api/commandes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.commandeList.length()").value(ROWS));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
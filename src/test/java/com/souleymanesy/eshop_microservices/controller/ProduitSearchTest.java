@@ -0,0 +1,125 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.service.ProduitService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/produits/search : pertinence (nom avant description), analyse du français (pluriel,
+ * accents), pagination, et index tenu à jour par saveProduit / deleteProduit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProduitSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    private Categorie categorie;
+
+    @BeforeEach
+    void setUp() {
+        categorie = categorieRepository.save(new Categorie(null, "maison", null, null, null, null, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void ranksNameMatchesFirstAndAnalysesFrench() throws Exception {
+        Produit sac = save("Sac de sport", "Rangement pour chaussures de course");
+        Produit chaussure = save("Chaussure de course", "Semelle amortie");
+        save("Télévision", "Écran de 55 pouces");
+
+        assertThat(ids(search("/api/produits/search?q=chaussures"))).containsExactly(chaussure.getId(), sac.getId());
+        assertThat(ids(search("/api/produits/search?q=television ecran"))).hasSize(1);
+        assertThat(ids(search("/api/produits/search?q=chaussure -sac"))).containsExactly(chaussure.getId());
+    }
+
+    @Test
+    void paginatesWithNextAndPrevLinks() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            save("Lampe " + i, "Lampe de bureau");
+        }
+
+        JsonNode first = search("/api/produits/search?q=lampe&size=2");
+        assertThat(ids(first)).hasSize(2);
+        assertThat(first.path("page").path("totalElements").asLong()).isEqualTo(3);
+        assertThat(first.path("_links").has("next")).isTrue();
+        assertThat(first.path("_links").has("prev")).isFalse();
+
+        JsonNode second = search(first.path("_links").path("next").path("href").asText());
+        assertThat(ids(second)).hasSize(1).doesNotContainAnyElementsOf(ids(first));
+        assertThat(second.path("_links").has("next")).isFalse();
+        assertThat(second.path("_links").has("prev")).isTrue();
+    }
+
+    @Test
+    void indexFollowsSaveAndDelete() throws Exception {
+        Produit produit = save("Bouilloire", "Inox");
+        assertThat(ids(search("/api/produits/search?q=bouilloire"))).containsExactly(produit.getId());
+
+        produit.setNom("Théière");
+        produitService.saveProduit(produit);
+        assertThat(ids(search("/api/produits/search?q=bouilloire"))).isEmpty();
+        assertThat(ids(search("/api/produits/search?q=theiere"))).containsExactly(produit.getId());
+
+        produitService.deleteProduit(produit.getId());
+        assertThat(ids(search("/api/produits/search?q=theiere"))).isEmpty();
+
+        mockMvc.perform(get("/api/produits/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Produit save(String nom, String description) {
+        return produitService.saveProduit(new Produit(null, nom, description, 10.0, 5, null, null, categorie));
+    }
+
+    private JsonNode search(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<Long> ids(JsonNode json) {
+        List<Long> ids = new ArrayList<>();
+        json.path("_embedded").path("produitList").forEach(produit -> ids.add(produit.get("id").asLong()));
+        return ids;
+    }
+}
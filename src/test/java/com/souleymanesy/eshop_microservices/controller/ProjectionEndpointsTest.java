@@ -0,0 +1,121 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.LigneCommande;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Les GET renvoient des projections : aucune entité n'est chargée dans le contexte de
+ * persistance et les champs internes (mot de passe, collections) ne sortent plus.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProjectionEndpointsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    private User user;
+    private Produit produit;
+    private Commande commande;
+
+    @BeforeEach
+    void setUp() {
+        Categorie categorie = categorieRepository.save(new Categorie(null, "livres", null, null, null, null, null));
+        produit = produitRepository.save(new Produit(null, "roman", null, 12.5, 3, null, null, categorie));
+        user = userRepository.save(new User(null, "client", "secret", "client@test.sn", null, null, null, null));
+        Commande nouvelle = new Commande(null, LocalDateTime.of(2024, 1, 1, 12, 0), 25.0, "NOUVELLE", user, new ArrayList<>());
+        nouvelle.getLignes().add(new LigneCommande(null, nouvelle, produit, null, 2, 12.5));
+        commande = commandeRepository.save(nouvelle);
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void userDoesNotExposePasswordNorCommandes() throws Exception {
+        JsonNode json = read("/api/users/" + user.getId());
+
+        assertThat(json.get("username").asText()).isEqualTo("client");
+        assertThat(json.has("password")).isFalse();
+        assertThat(json.has("commandes")).isFalse();
+        assertThat(json.path("_links").has("commandes")).isTrue();
+    }
+
+    @Test
+    void commandeListLoadsNoEntities() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        JsonNode json = read("/api/commandes");
+
+        List<JsonNode> commandes = new ArrayList<>();
+        json.path("_embedded").path("commandeList").forEach(commandes::add);
+        assertThat(commandes).hasSize(1);
+        JsonNode lue = commandes.get(0);
+        assertThat(lue.get("id").asLong()).isEqualTo(commande.getId());
+        assertThat(lue.get("userId").asLong()).isEqualTo(user.getId());
+        assertThat(lue.get("lignes")).hasSize(1);
+        assertThat(lue.get("lignes").get(0).get("produitId").asLong()).isEqualTo(produit.getId());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private JsonNode read(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
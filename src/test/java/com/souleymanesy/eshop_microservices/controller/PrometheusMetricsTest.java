@@ -0,0 +1,44 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Après un appel à /api/produits, le point de collecte Prometheus expose les timers des services,
+ * le nombre de requêtes SQL par requête HTTP, les histogrammes HTTP et les métriques Hibernate / Hikari.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class PrometheusMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusEndpointExposesApplicationMetrics() throws Exception {
+        mockMvc.perform(get("/api/produits")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("eshop_service_seconds_bucket{class=\"com.souleymanesy.eshop_microservices.service.ProduitService\"")
+                .containsPattern("eshop_http_sql_statements_count\\{method=\"GET\",uri=\"/api/produits\",} 1\\.0")
+                .containsPattern("http_server_requests_seconds_bucket\\{.*uri=\"/api/produits\"")
+                .contains("spring_data_repository_invocations_seconds_bucket")
+                .contains("hibernate_query_executions_total")
+                .contains("hikaricp_connections_active");
+    }
+}
@@ -0,0 +1,194 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.LigneCommande;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import com.souleymanesy.eshop_microservices.service.CommandeService;
+import com.souleymanesy.eshop_microservices.service.ProduitService;
+import com.souleymanesy.eshop_microservices.service.PurgeService;
+import com.souleymanesy.eshop_microservices.service.PurgeWorker;
+import com.souleymanesy.eshop_microservices.service.StatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Suppression logique (enfants masqués des listes et des exports) puis purge par tranches de deux
+ * enfants : une tranche à la main (avancement visible, reprise au curseur), le reste par le thread
+ * de purge.
+ */
+@SpringBootTest(properties = {"eshop.purge.chunk-size=2", "eshop.purge.pause-ms=0"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PurgeEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PurgeService purgeService;
+
+    @Autowired
+    private PurgeWorker purgeWorker;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private ProduitService produitService;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Categorie categorie;
+    private User user;
+    private final List<Produit> produits = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statsService.reconcilier(true);
+        categorie = categorieRepository.save(new Categorie(null, "purge", null, null, null, null, null));
+        for (int i = 0; i < 5; i++) {
+            produits.add(produitRepository.save(new Produit(null, "produit-" + i, null, 10.0, 100, null, null, categorie)));
+        }
+        user = userRepository.save(new User(null, "purge", "secret", "purge@test.sn", null, null, null, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        produitRepository.deleteAll();
+        userRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void deletedCategoryIsHiddenThenPurgedInChunks() throws Exception {
+        // Commande d'un autre client sur un produit de la catégorie : la ligne survit au produit
+        User autre = userRepository.save(new User(null, "autre-purge", "secret", "autre-purge@test.sn", null, null, null, null));
+        Commande commande = commandeService.saveCommande(commande(autre, 10.0, produits.get(0)));
+
+        String location = mockMvc.perform(delete("/api/categories/{id}", categorie.getId()))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        mockMvc.perform(get("/api/categories/{id}", categorie.getId())).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/categories/{id}", categorie.getId())).andExpect(status().isNotFound());
+        // En attente de purge, les produits sortent des listes et de l'export
+        String produitDeLaCategorie = "\"categorieId\":" + categorie.getId();
+        assertThat(read("/api/produits?categorieId=" + categorie.getId()).toString()).doesNotContain(produitDeLaCategorie);
+        ByteArrayOutputStream exportProduits = new ByteArrayOutputStream();
+        produitService.exportProduits(exportProduits);
+        assertThat(exportProduits.toString(StandardCharsets.UTF_8)).doesNotContain(produitDeLaCategorie);
+
+        Long purgeId = read(location).get("id").asLong();
+        assertThat(purgeService.purgerTranche(purgeId)).isFalse();
+        JsonNode avancement = read(location);
+        assertThat(avancement.get("enfantsTotal").asLong()).isEqualTo(5);
+        assertThat(avancement.get("enfantsSupprimes").asLong()).isEqualTo(2);
+        assertThat(avancement.get("dateFin").isNull()).isTrue();
+        assertThat(produitRepository.count()).isEqualTo(3);
+
+        purgeWorker.relever();
+        JsonNode fin = attendreFin(location);
+        assertThat(fin.get("enfantsSupprimes").asLong()).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from categorie where id = ?", Long.class, categorie.getId()))
+                .isZero();
+        assertThat(jdbcTemplate.queryForMap("select produit_id, prix_unitaire from ligne_commande where commande_id = ?",
+                commande.getId()))
+                .containsEntry("produit_id", null)
+                .containsEntry("prix_unitaire", 10.0);
+    }
+
+    @Test
+    void deletedUserCommandesArePurgedAndStatsFollow() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            commandeService.saveCommande(commande(user, 20.0, produits.get(i)));
+        }
+
+        String location = mockMvc.perform(delete("/api/users/{id}", user.getId()))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        mockMvc.perform(get("/api/users/{id}", user.getId())).andExpect(status().isNotFound());
+        String commandeDuUser = "\"userId\":" + user.getId();
+        assertThat(read("/api/commandes").toString()).doesNotContain(commandeDuUser);
+        ByteArrayOutputStream exportCommandes = new ByteArrayOutputStream();
+        commandeService.exportCommandes(exportCommandes);
+        assertThat(exportCommandes.toString(StandardCharsets.UTF_8)).doesNotContain(commandeDuUser);
+        assertThat(read("/api/purges").path("_embedded").path("purgeList")).hasSize(1);
+
+        purgeWorker.relever();
+        assertThat(attendreFin(location).get("enfantsSupprimes").asLong()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from app_user where id = ?", Long.class, user.getId()))
+                .isZero();
+        assertThat(read("/api/purges").path("_embedded").path("purgeList")).isEmpty();
+        assertThat(statsService.reconcilier(false).ecarts()).isZero();
+    }
+
+    private Commande commande(User client, double montant, Produit produit) {
+        Commande commande = new Commande(null, LocalDateTime.of(2032, 3, 1, 9, 0), montant, "PURGE_TEST", client, new ArrayList<>());
+        commande.getLignes().add(new LigneCommande(null, commande, produit, produit.getId(), 1, montant));
+        return commande;
+    }
+
+    private JsonNode attendreFin(String location) throws Exception {
+        for (int essai = 0; essai < 100; essai++) {
+            JsonNode purge = read(location);
+            if (!purge.get("dateFin").isNull()) {
+                return purge;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Purge non terminée : " + location);
+    }
+
+    private JsonNode read(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
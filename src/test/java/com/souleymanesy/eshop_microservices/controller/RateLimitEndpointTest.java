@@ -0,0 +1,117 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.souleymanesy.eshop_microservices.config.AdaptiveConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Seau de deux requêtes par client sur les écritures produits, d'une requête sur les commandes
+ * (quasiment pas de recharge), une clé d'API reconnue, et limite de concurrence fixe (échantillonnage
+ * désactivé en pratique) pour le délestage en 503.
+ */
+@SpringBootTest(properties = {
+        "eshop.rate-limit.routes.produits.rate-per-second=0.01",
+        "eshop.rate-limit.routes.produits.burst=2",
+        "eshop.rate-limit.routes.commandes.rate-per-second=0.01",
+        "eshop.rate-limit.routes.commandes.burst=1",
+        "eshop.rate-limit.api-keys=cle-partenaire",
+        "eshop.concurrency.initial-limit=4",
+        "eshop.concurrency.min-limit=4",
+        "eshop.concurrency.sample-interval-ms=3600000"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void writesBeyondBurstAreRejectedPerClient() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.1")))
+                    .andExpect(status().isNotFound());
+        }
+        mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.1")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"));
+        // Une clé d'API inconnue ne donne pas de nouveau seau
+        mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.1")).header("X-API-Key", "autre"))
+                .andExpect(status().isTooManyRequests());
+        // Une clé reconnue a son propre seau, quelle que soit l'adresse partagée (CGNAT)
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.1")).header("X-API-Key", "cle-partenaire"))
+                    .andExpect(status().isNotFound());
+        }
+        mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.9")).header("X-API-Key", "cle-partenaire"))
+                .andExpect(status().isTooManyRequests());
+
+        // Autre client, et lectures : non concernés
+        mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.2")))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/produits/{id}", 999_999).with(depuis("10.0.0.1")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void writesAreShedWhenConcurrencyLimitIsReached() throws Exception {
+        int pris = 0;
+        while (concurrencyLimit.tryAcquire()) {
+            pris++;
+        }
+        try {
+            assertThat(pris).isEqualTo(4);
+            mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.3")))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+            mockMvc.perform(get("/api/produits/{id}", 999_999)).andExpect(status().isNotFound());
+        } finally {
+            for (int i = 0; i < pris; i++) {
+                concurrencyLimit.release();
+            }
+        }
+        mockMvc.perform(delete("/api/produits/{id}", 999_999).with(depuis("10.0.0.4")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rejectedKeyedPostReservesNoKey() throws Exception {
+        // Seau vidé par une commande sans clé (corps invalide : rien n'est écrit)
+        mockMvc.perform(post("/api/commandes").with(depuis("10.0.0.5"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().is4xxClientError());
+
+        mockMvc.perform(post("/api/commandes").with(depuis("10.0.0.5"))
+                        .header("Idempotency-Key", "cle-delestee")
+                        .contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isTooManyRequests());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from idempotence_cle", Long.class)).isZero();
+    }
+
+    private static RequestPostProcessor depuis(String adresse) {
+        return request -> {
+            request.setRemoteAddr(adresse);
+            return request;
+        };
+    }
+}
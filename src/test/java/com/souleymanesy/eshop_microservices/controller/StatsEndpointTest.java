@@ -0,0 +1,157 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.dto.StatsReconciliation;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import com.souleymanesy.eshop_microservices.service.CommandeService;
+import com.souleymanesy.eshop_microservices.service.StatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Agrégats /api/stats tenus à jour par les écritures de commandes, et réconciliation par tranches
+ * (deux ids par tranche ici) qui détecte puis corrige une dérive introduite hors JPA.
+ */
+@SpringBootTest(properties = "eshop.stats.reconciliation.chunk-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatsEndpointTest {
+
+    // Jour et statut propres à ce test : la base est partagée avec les autres classes
+    private static final LocalDateTime JOUR = LocalDateTime.of(2031, 5, 17, 10, 0);
+    private static final String STATUT = "STATS_TEST";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statsService.reconcilier(true);
+        user = userRepository.save(new User(null, "stats", "secret", "stats@test.sn", null, null, null, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void aggregatesFollowSaveUpdateAndDelete() throws Exception {
+        Commande premiere = commandeService.saveCommande(commande(100.0));
+        Commande seconde = commandeService.saveCommande(commande(50.0));
+        assertJour(2, 150.0);
+        assertThat(read("/api/stats/users/" + user.getId()).get("valeurTotale").asDouble()).isEqualTo(150.0);
+
+        // Commande rejetée : retirée du chiffre d'affaires, comptée sous son nouveau statut
+        mockMvc.perform(put("/api/commandes/{id}", seconde.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"dateCommande\":\"2031-05-17T10:00:00\",\"montantTotal\":50.0,\"statut\":\"REJETEE\"}"))
+                .andExpect(status().isOk());
+        assertJour(1, 100.0);
+        assertThat(statut(STATUT)).isEqualTo(1);
+
+        mockMvc.perform(delete("/api/commandes/{id}", premiere.getId())).andExpect(status().isNoContent());
+        assertJour(0, 0.0);
+        JsonNode stats = read("/api/stats/users/" + user.getId());
+        assertThat(stats.get("nombreCommandes").asLong()).isZero();
+        assertThat(stats.path("_links").has("user")).isTrue();
+        assertThat(statut(STATUT)).isZero();
+
+        assertThat(statsService.reconcilier(false).ecarts()).isZero();
+        mockMvc.perform(get("/api/stats/users/{id}", 999_999)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reconciliationReportsAndFixesDrift() {
+        for (int i = 0; i < 5; i++) {
+            commandeService.saveCommande(commande(10.0));
+        }
+        // Écritures hors JPA : une commande insérée en SQL, un agrégat modifié à la main
+        jdbcTemplate.update("insert into commande (date_commande, montant_total, statut, user_id) values (?, ?, ?, ?)",
+                JOUR, 20.0, STATUT, user.getId());
+        jdbcTemplate.update("update stat_user set valeur_totale = valeur_totale + 7 where user_id = ?", user.getId());
+
+        StatsReconciliation rapport = statsService.reconcilier(false);
+        assertThat(rapport.commandesLues()).isGreaterThanOrEqualTo(6);
+        assertThat(rapport.details()).extracting(ecart -> ecart.table() + ":" + ecart.cle())
+                .containsExactlyInAnyOrder("stat_jour:2031-05-17", "stat_statut:" + STATUT, "stat_user:" + user.getId());
+        assertThat(rapport.details()).filteredOn(ecart -> ecart.table().equals("stat_user"))
+                .singleElement()
+                .satisfies(ecart -> {
+                    assertThat(ecart.montantAttendu()).isEqualTo(70.0);
+                    assertThat(ecart.montantStocke()).isEqualTo(57.0);
+                });
+
+        assertThat(statsService.reconcilier(true).ecarts()).isEqualTo(3);
+        assertThat(statsService.reconcilier(false).ecarts()).isZero();
+    }
+
+    private Commande commande(double montant) {
+        return new Commande(null, JOUR, montant, STATUT, user, new ArrayList<>());
+    }
+
+    private void assertJour(long nombre, double chiffreAffaires) throws Exception {
+        JsonNode jours = read("/api/stats/jours?du=2031-05-17&au=2031-05-17").path("_embedded").path("statJourList");
+        assertThat(jours).hasSize(1);
+        assertThat(jours.get(0).get("nombreCommandes").asLong()).isEqualTo(nombre);
+        assertThat(jours.get(0).get("chiffreAffaires").asDouble()).isEqualTo(chiffreAffaires);
+    }
+
+    private long statut(String statut) throws Exception {
+        for (JsonNode ligne : read("/api/stats/statuts").path("_embedded").path("statStatutList")) {
+            if (ligne.get("statut").asText().equals(statut)) {
+                return ligne.get("nombreCommandes").asLong();
+            }
+        }
+        return 0;
+    }
+
+    private JsonNode read(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
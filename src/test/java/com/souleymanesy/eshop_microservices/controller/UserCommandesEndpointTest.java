@@ -0,0 +1,111 @@
+package com.souleymanesy.eshop_microservices.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Historique des commandes d'un utilisateur : parcours complet par curseur, du plus récent au
+ * plus ancien, sans charger la collection User.commandes.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserCommandesEndpointTest {
+
+    private static final int COMMANDES = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "client", "secret", "client@test.sn", null, null, null, null));
+        User autre = userRepository.save(new User(null, "autre", "secret", "autre@test.sn", null, null, null, null));
+        LocalDateTime date = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < COMMANDES; i++) {
+            // Deux commandes par date : le curseur doit départager sur l'id
+            commandeRepository.save(new Commande(null, date.plusDays(i / 2), i, "NOUVELLE", user, null));
+            commandeRepository.save(new Commande(null, date.plusDays(i / 2), i, "NOUVELLE", autre, null));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void pagesThroughUserCommandesNewestFirst() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<JsonNode> commandes = new ArrayList<>();
+        URI url = URI.create("/api/users/" + user.getId() + "/commandes?size=10");
+        int pages = 0;
+        while (url != null) {
+            String body = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode json = objectMapper.readTree(body);
+            json.path("_embedded").path("commandeList").forEach(commandes::add);
+            JsonNode next = json.path("_links").path("next").path("href");
+            url = next.isMissingNode() ? null : URI.create(next.asText());
+            pages++;
+        }
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(commandes).hasSize(COMMANDES);
+        assertThat(commandes).extracting(c -> c.get("id").asLong()).doesNotHaveDuplicates();
+        for (int i = 1; i < commandes.size(); i++) {
+            String precedente = commandes.get(i - 1).get("dateCommande").asText();
+            String courante = commandes.get(i).get("dateCommande").asText();
+            assertThat(precedente.compareTo(courante)).isGreaterThanOrEqualTo(0);
+        }
+        assertThat(statistics.getCollectionStatistics(User.class.getName() + ".commandes").getLoadCount()).isZero();
+    }
+
+    @Test
+    void unknownUserIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/users/{id}/commandes", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+}
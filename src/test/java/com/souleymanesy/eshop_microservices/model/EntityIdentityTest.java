@@ -0,0 +1,150 @@
+package com.souleymanesy.eshop_microservices.model;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * equals, hashCode et toString des entités ne doivent initialiser ni collection ni proxy :
+ * une entité placée dans un Set ou écrite dans un journal ne charge pas ses relations.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityIdentityTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long categorieId;
+    private Long produitId;
+    private Long userId;
+    private Long commandeId;
+    private Long ligneId;
+
+    @BeforeEach
+    void setUp() {
+        inTransaction(em -> {
+            Categorie categorie = new Categorie(null, "livres", null, null, null, null, null);
+            em.persist(categorie);
+            Produit produit = new Produit(null, "roman", null, 12.5, 3, null, null, categorie);
+            em.persist(produit);
+            User user = new User(null, "lecteur", "secret", "lecteur@test.sn", null, null, null, null);
+            em.persist(user);
+            Commande commande = new Commande(null, LocalDateTime.now(), 12.5, "NOUVELLE", user, null);
+            em.persist(commande);
+            LigneCommande ligne = new LigneCommande(null, commande, produit, null, 1, 12.5);
+            em.persist(ligne);
+            categorieId = categorie.getId();
+            produitId = produit.getId();
+            userId = user.getId();
+            commandeId = commande.getId();
+            ligneId = ligne.getId();
+        });
+        // Sinon Categorie et Produit seraient résolus depuis le cache de second niveau, sans proxy
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        inTransaction(em -> List.of("LigneCommande", "Commande", "User", "Produit", "Categorie")
+                .forEach(entity -> em.createQuery("delete from " + entity).executeUpdate()));
+    }
+
+    @Test
+    void hashingComparingAndLoggingLeaveCollectionsUninitialized() {
+        inTransaction(em -> {
+            Categorie categorie = em.find(Categorie.class, categorieId);
+            User user = em.find(User.class, userId);
+            Commande commande = em.find(Commande.class, commandeId);
+            List<Object> entities = List.of(categorie, user, commande);
+
+            exercise(entities);
+
+            assertThat(Hibernate.isInitialized(categorie.getProduits())).isFalse();
+            assertThat(Hibernate.isInitialized(user.getCommandes())).isFalse();
+            assertThat(Hibernate.isInitialized(commande.getLignes())).isFalse();
+        });
+    }
+
+    @Test
+    void hashingComparingAndLoggingLeaveProxiesUninitialized() {
+        inTransaction(em -> {
+            Produit produit = em.find(Produit.class, produitId);
+
+            exercise(List.of(produit));
+
+            assertThat(Hibernate.isInitialized(produit.getCategorie())).isFalse();
+        });
+        inTransaction(em -> {
+            LigneCommande ligne = em.find(LigneCommande.class, ligneId);
+
+            exercise(List.of(ligne));
+
+            assertThat(Hibernate.isInitialized(ligne.getCommande())).isFalse();
+            assertThat(Hibernate.isInitialized(ligne.getProduit())).isFalse();
+        });
+    }
+
+    @Test
+    void proxyEqualsLoadedEntityWithSameId() {
+        Produit[] loaded = new Produit[1];
+        inTransaction(em -> loaded[0] = em.find(Produit.class, produitId));
+        entityManagerFactory.getCache().evictAll();
+        inTransaction(em -> {
+            Produit reference = em.getReference(Produit.class, produitId);
+
+            // Comparer une entité à un proxy ne lit que son identifiant
+            assertThat(loaded[0]).isEqualTo(reference);
+            assertThat(Hibernate.isInitialized(reference)).isFalse();
+
+            // Appelés sur le proxy lui-même, equals et hashCode passent par l'entité réelle
+            assertThat(reference).isEqualTo(loaded[0]);
+            assertThat(reference.hashCode()).isEqualTo(loaded[0].hashCode());
+        });
+    }
+
+    @Test
+    void transientEntitiesAreOnlyEqualToThemselves() {
+        Produit premier = new Produit();
+        Produit second = new Produit();
+
+        Set<Produit> produits = new HashSet<>(List.of(premier, second));
+
+        assertThat(premier).isNotEqualTo(second);
+        assertThat(produits).hasSize(2);
+    }
+
+    private static void exercise(List<Object> entities) {
+        Set<Object> set = new HashSet<>(entities);
+        for (Object entity : entities) {
+            assertThat(set).contains(entity);
+            assertThat(entity).isEqualTo(entity);
+            assertThat(entity.toString()).isNotBlank();
+        }
+    }
+
+    private void inTransaction(Consumer<EntityManager> work) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            work.accept(em);
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
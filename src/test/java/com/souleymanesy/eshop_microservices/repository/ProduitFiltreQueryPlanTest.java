@@ -0,0 +1,136 @@
+package com.souleymanesy.eshop_microservices.repository;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Filtres de GET /api/produits : résultats paginés corrects, et plan d'exécution de la requête
+ * SQL réellement générée passant par les index déclarés sur {@link Produit}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.souleymanesy.eshop_microservices.repository.ProduitFiltreQueryPlanTest$SqlCapture")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProduitFiltreQueryPlanTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    private Categorie categorie;
+
+    @BeforeEach
+    void setUp() {
+        List<Produit> produits = new ArrayList<>();
+        for (int c = 0; c < 20; c++) {
+            Categorie courante = categorieRepository.save(new Categorie(null, "categorie-" + c, null, null, null, null, null));
+            if (c == 0) {
+                categorie = courante;
+            }
+            for (int i = 0; i < 50; i++) {
+                produits.add(new Produit(null, "produit-" + c + "-" + i, null, i, i % 5, null, null, courante));
+            }
+        }
+        produitRepository.saveAll(produits);
+        jdbcTemplate.execute("analyze");
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        produitRepository.deleteAllInBatch();
+        categorieRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void filtersArePaginatedAndKeptInLinks() throws Exception {
+        mockMvc.perform(get("/api/produits")
+                        .param("categorieId", categorie.getId().toString())
+                        .param("minPrix", "10")
+                        .param("maxPrix", "30")
+                        .param("inStock", "true")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.produitList.length()").value(5))
+                .andExpect(jsonPath("$._embedded.produitList[*].prix", everyItem(allOf(
+                        greaterThanOrEqualTo(10.0), lessThanOrEqualTo(30.0)))))
+                .andExpect(jsonPath("$._embedded.produitList[*].quantiteStock", everyItem(greaterThan(0))))
+                .andExpect(jsonPath("$._links.next.href", containsString("categorieId=" + categorie.getId())))
+                .andExpect(jsonPath("$._links.next.href", containsString("minPrix=10.0")));
+    }
+
+    @Test
+    void categorieFilterUsesCategorieIndex() throws Exception {
+        mockMvc.perform(get("/api/produits").param("categorieId", categorie.getId().toString()))
+                .andExpect(status().isOk());
+
+        // H2 peut retenir l'index qu'il crée pour la clé étrangère (MySQL réutilise idx_produit_categorie_id) :
+        // on vérifie un accès indexé sur categorie_id plutôt qu'un nom d'index
+        assertThat(plan()).containsPattern("/\\* public\\.\\w+: categorie_id = ")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    void prixFilterUsesPrixIndex() throws Exception {
+        mockMvc.perform(get("/api/produits").param("minPrix", "48").param("maxPrix", "49"))
+                .andExpect(status().isOk());
+
+        assertThat(plan()).contains("idx_produit_prix").doesNotContain("tableScan");
+    }
+
+    // EXPLAIN de la dernière requête sur produit, paramètres remplacés par des littéraux
+    private String plan() {
+        String sql = SqlCapture.STATEMENTS.stream()
+                .filter(statement -> statement.contains(" from produit"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        String literal = sql.replace("?", "1");
+        return jdbcTemplate.queryForList("explain " + literal, String.class).stream()
+                .collect(Collectors.joining("\n"));
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CategorieCacheTest {
+
+    @Autowired
+    private CategorieService categorieService;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedLookupIsServedFromSecondLevelCache() {
+        Long id = categorieService.saveCategorie(new Categorie(null, "livres", null, null, null, null, null)).getId();
+        statistics.clear();
+
+        categorieService.getCategorieById(id);
+        categorieService.getCategorieById(id);
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("hibernate.second.level.cache.requests").tag("result", "hit").functionCounter())
+                .isNotNull();
+    }
+
+    @Test
+    void writesEvictCachedListing() {
+        categorieService.saveCategorie(new Categorie(null, "jeux", null, null, null, null, null));
+        assertThat(categorieService.getAllCategories()).hasSize(1);
+
+        categorieService.saveCategorie(new Categorie(null, "musique", null, null, null, null, null));
+
+        assertThat(categorieService.getAllCategories()).extracting(Categorie::getNom)
+                .containsExactlyInAnyOrder("jeux", "musique");
+    }
+}
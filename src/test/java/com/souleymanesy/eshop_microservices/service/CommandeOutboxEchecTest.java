@@ -0,0 +1,100 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.CommandeOutbox;
+import com.souleymanesy.eshop_microservices.model.LigneCommande;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeOutboxRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Échecs de traitement de l'outbox : chaque échec diffère le prochain essai, et la commande est
+ * refusée au bout de eshop.commande.outbox.max-echecs (5 par défaut) au lieu d'être relevée indéfiniment.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CommandeOutboxEchecTest {
+
+    @Autowired
+    private CommandeOutboxWorker commandeOutboxWorker;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private CommandeOutboxRepository commandeOutboxRepository;
+
+    private Commande commande;
+
+    @BeforeEach
+    void setUp() {
+        Categorie categorie = categorieRepository.save(new Categorie(null, "outils", null, null, null, null, null));
+        Produit produit = produitRepository.save(new Produit(null, "marteau", null, 8.0, 3, null, null, categorie));
+        User user = userRepository.save(new User(null, "echec", "secret", "echec@test.sn", null, null, null, null));
+        LigneCommande ligne = new LigneCommande();
+        ligne.setProduitId(produit.getId());
+        ligne.setQuantite(1);
+        commande = commandeOutboxWorker.soumettre(
+                new Commande(null, LocalDateTime.now(), 0, null, user, new ArrayList<>(List.of(ligne))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeOutboxRepository.deleteAll();
+        commandeOutboxWorker.recompter();
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void failureDefersNextAttempt() {
+        CommandeOutbox outbox = commandeOutboxRepository.findAll().get(0);
+
+        commandeOutboxWorker.echec(outbox.getId());
+
+        CommandeOutbox apres = commandeOutboxRepository.findById(outbox.getId()).orElseThrow();
+        assertThat(apres.getTentatives()).isEqualTo(1);
+        assertThat(apres.getProchainEssai()).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    void rejectsAfterMaxFailures() {
+        Long outboxId = commandeOutboxRepository.findAll().get(0).getId();
+
+        for (int echec = 0; echec < 5; echec++) {
+            commandeOutboxWorker.echec(outboxId);
+        }
+
+        assertThat(commandeOutboxRepository.findById(outboxId)).isEmpty();
+        assertThat(commandeRepository.findById(commande.getId()).orElseThrow().getStatut())
+                .isEqualTo(CommandeService.STATUT_REJETEE);
+    }
+}
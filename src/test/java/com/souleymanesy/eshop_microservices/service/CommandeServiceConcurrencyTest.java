@@ -0,0 +1,99 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.model.Categorie;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.LigneCommande;
+import com.souleymanesy.eshop_microservices.model.Produit;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CategorieRepository;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.ProduitRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 500 commandes simultanées sur le même produit : le stock ne doit jamais être survendu.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CommandeServiceConcurrencyTest {
+
+    private static final int STOCK = 100;
+    private static final int CHECKOUTS = 500;
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private CategorieRepository categorieRepository;
+
+    @Autowired
+    private ProduitRepository produitRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+        produitRepository.deleteAll();
+        categorieRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Categorie categorie = categorieRepository.save(new Categorie(null, "flash", null, null, null, null, null));
+        Produit produit = produitRepository.save(new Produit(null, "console", null, 299.0, STOCK, null, null, categorie));
+        User user = userRepository.save(new User(null, "acheteur", "secret", "acheteur@test.sn", null, null, null, null));
+
+        AtomicInteger reussies = new AtomicInteger();
+        AtomicInteger refusees = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            futures.add(executor.submit(() -> {
+                depart.await();
+                Commande commande = new Commande(null, LocalDateTime.now(), 0, "NOUVELLE", user, new ArrayList<>());
+                commande.getLignes().add(new LigneCommande(null, null, null, produit.getId(), 1, 0));
+                try {
+                    commandeService.passerCommande(commande);
+                    reussies.incrementAndGet();
+                } catch (StockInsuffisantException e) {
+                    refusees.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        depart.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(reussies.get()).isEqualTo(STOCK);
+        assertThat(refusees.get()).isEqualTo(CHECKOUTS - STOCK);
+        assertThat(produitRepository.findById(produit.getId()).orElseThrow().getQuantiteStock()).isZero();
+        assertThat(commandeRepository.count()).isEqualTo(STOCK);
+    }
+}
@@ -0,0 +1,97 @@
+package com.souleymanesy.eshop_microservices.service;
+
+import com.souleymanesy.eshop_microservices.dto.StatsEcart;
+import com.souleymanesy.eshop_microservices.model.Commande;
+import com.souleymanesy.eshop_microservices.model.User;
+import com.souleymanesy.eshop_microservices.repository.CommandeRepository;
+import com.souleymanesy.eshop_microservices.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Correction des écarts de réconciliation : un écart vu sur un instantané périmé (réplica en retard,
+ * commande écrite pendant le recalcul) est revérifié sur le primaire et n'est pas appliqué.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StatsCorrectionTest {
+
+    // Jour et statut propres à ce test : la base est partagée avec les autres classes
+    private static final LocalDateTime JOUR = LocalDateTime.of(2032, 3, 9, 10, 0);
+    private static final String STATUT = "CORRECTION_TEST";
+
+    @Autowired
+    private CommandeService commandeService;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private CommandeRepository commandeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statsService.reconcilier(true);
+        user = userRepository.save(new User(null, "correction", "secret", "correction@test.sn", null, null, null, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void transientDriftIsNotWritten() {
+        commandeService.saveCommande(commande(10.0));
+        commandeService.saveCommande(commande(15.0));
+
+        // Écarts calculés avant la seconde commande : les agrégats, eux, sont déjà à jour
+        statsService.corriger(new StatsEcart("stat_jour", "2032-03-09", 1, 2, 10.0, 25.0));
+        statsService.corriger(new StatsEcart("stat_statut", STATUT, 1, 2, 0, 0));
+        statsService.corriger(new StatsEcart("stat_user", user.getId().toString(), 1, 2, 10.0, 25.0));
+
+        assertThat(jdbcTemplate.queryForObject("select nombre_commandes from stat_jour where jour = ?",
+                Long.class, JOUR.toLocalDate())).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select nombre_commandes from stat_statut where statut = ?",
+                Long.class, STATUT)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select valeur_totale from stat_user where user_id = ?",
+                Double.class, user.getId())).isEqualTo(25.0);
+        assertThat(statsService.reconcilier(false).ecarts()).isZero();
+    }
+
+    @Test
+    void confirmedDriftIsCorrectedFromPrimary() {
+        commandeService.saveCommande(commande(10.0));
+        jdbcTemplate.update("update stat_user set valeur_totale = valeur_totale + 7 where user_id = ?", user.getId());
+
+        // Montant attendu périmé : la correction écrit le recalcul du primaire, pas celui de l'écart
+        statsService.corriger(new StatsEcart("stat_user", user.getId().toString(), 1, 1, 3.0, 17.0));
+
+        assertThat(jdbcTemplate.queryForObject("select valeur_totale from stat_user where user_id = ?",
+                Double.class, user.getId())).isEqualTo(10.0);
+        assertThat(statsService.reconcilier(false).ecarts()).isZero();
+    }
+
+    private Commande commande(double montant) {
+        return new Commande(null, JOUR, montant, STATUT, user, new ArrayList<>());
+    }
+}